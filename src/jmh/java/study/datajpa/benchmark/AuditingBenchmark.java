@@ -0,0 +1,39 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import study.datajpa.entity.Member;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Batch inserts audited members, with audit values filled once per flush ({@code perEntityHandler=false})
+ * and by Spring Data's {@code AuditingHandler} for every entity, as {@code AuditingEntityListener} did
+ * (see {@link PerEntityAuditing}).
+ * Run with {@code -PjmhMembers=0}, the seeded members do not matter here.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuditingBenchmark extends SeededContext {
+
+    private static final int BATCH = 1000;
+
+    @Param({"false", "true"})
+    public boolean perEntityHandler;
+
+    @Override
+    protected void afterSeed() {
+        if (perEntityHandler) {
+            PerEntityAuditing.install(context);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public long batchInsert() {
+        return memberRepository.saveAllBatched(IntStream.range(0, BATCH).mapToObj(i -> new Member(username(i), i)));
+    }
+}
@@ -0,0 +1,62 @@
+package study.datajpa.benchmark;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import study.datajpa.entity.Member;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load test of the online pool: {@value #THREADS} threads run short read transactions against pools
+ * of {@link #poolSize} connections. Throughput stops growing once the pool is saturated; the
+ * connection acquire time printed after each iteration shows how long transactions waited for it.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(ConnectionPoolBenchmark.THREADS)
+@Fork(1)
+public class ConnectionPoolBenchmark extends SeededContext {
+
+    static final int THREADS = 32;
+
+    @Param({"2", "8", "32"})
+    public int poolSize;
+
+    @Override
+    protected String[] properties() {
+        return new String[]{
+                "spring.datasource.hikari.maximum-pool-size=" + poolSize,
+                "spring.datasource.hikari.minimum-idle=" + poolSize,
+                "spring.datasource.hikari.connection-timeout=30000"
+        };
+    }
+
+    @Benchmark
+    public void readTransaction(Blackhole bh) {
+        String username = username(ThreadLocalRandom.current().nextInt(USERNAMES));
+        bh.consume(readOnly.execute(status -> {
+            List<Member> members = memberRepository.findListByUsername(username);
+            // stands in for work done while holding the connection
+            Blackhole.consumeCPU(20_000);
+            return members;
+        }));
+    }
+
+    // per iteration, the context is already closed at the end of the trial
+    @TearDown(Level.Iteration)
+    public void printAcquireTime() {
+        Timer acquire = context.getBean(MeterRegistry.class).find("hikaricp.connections.acquire")
+                .tag("pool", "primary")
+                .timer();
+        if (acquire != null) {
+            System.out.printf("%npool %d: %d acquisitions, mean %.3f ms, max %.3f ms%n", poolSize, acquire.count(),
+                    acquire.mean(TimeUnit.MILLISECONDS), acquire.max(TimeUnit.MILLISECONDS));
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import study.datajpa.entity.Member;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Flushes a persistence context holding all seeded members ({@code members=10000}) of which
+ * {@link #modifiedPercent} percent were changed. Run it once as is and once with
+ * {@code -PhibernateEnhance=false} to compare dirty tracking with the per-entity snapshot comparison.
+ * Every flush is rolled back, so each invocation updates the same rows.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FlushBenchmark extends SeededContext {
+
+    @Param({"1"})
+    public int modifiedPercent;
+
+    private EntityManagerFactory emf;
+    private EntityManager em;
+
+    @Override
+    protected void afterSeed() {
+        emf = context.getBean(EntityManagerFactory.class);
+    }
+
+    @Setup(Level.Invocation)
+    public void loadAndModify() {
+        em = emf.createEntityManager();
+        em.getTransaction().begin();
+        List<Member> loaded = em.createQuery("select m from Member m", Member.class).getResultList();
+        int step = 100 / modifiedPercent;
+        for (int i = 0; i < loaded.size(); i += step) {
+            Member member = loaded.get(i);
+            member.setAge(member.getAge() + 1);
+        }
+    }
+
+    @Benchmark
+    public void flush() {
+        em.flush();
+    }
+
+    @TearDown(Level.Invocation)
+    public void rollback() {
+        em.getTransaction().rollback();
+        em.close();
+    }
+}
@@ -0,0 +1,67 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberCursor;
+import study.datajpa.repository.count.PageCounter;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Offset paging through {@code findAll(Pageable)} with an exact count against keyset paging as served by
+ * {@code /members/keyset}, both reading the same page 90% deep into the table.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MemberPagingBenchmark extends SeededContext {
+
+    private static final int PAGE_SIZE = 20;
+    private static final Sort SORT = Sort.by("username", "id");
+
+    private PageCounter pageCounter;
+    private PageRequest deepPage;
+    private MemberCursor deepCursor;
+
+    @Override
+    protected void afterSeed() {
+        pageCounter = context.getBean(PageCounter.class);
+
+        int page = members / PAGE_SIZE * 9 / 10;
+        deepPage = PageRequest.of(page, PAGE_SIZE, SORT);
+
+        List<Member> previous = readOnly.execute(status ->
+                memberRepository.findAll(PageRequest.of(page - 1, PAGE_SIZE, SORT)).getContent());
+        deepCursor = MemberCursor.of(previous.get(previous.size() - 1));
+    }
+
+    @Benchmark
+    public void offsetPage(Blackhole bh) {
+        // findAll(Pageable) caches its total, dropping it makes every call pay the count(*) as well
+        pageCounter.invalidate(Member.class);
+        readOnly.executeWithoutResult(status -> {
+            Page<Member> page = memberRepository.findAll(deepPage);
+            bh.consume(page.getTotalElements());
+            for (Member member : page) {
+                bh.consume(member);
+            }
+        });
+    }
+
+    @Benchmark
+    public void keysetSlice(Blackhole bh) {
+        readOnly.executeWithoutResult(status -> {
+            for (Member member : memberRepository.findKeysetSlice(deepCursor, PAGE_SIZE)) {
+                bh.consume(member.getTeam().getName());
+            }
+        });
+    }
+}
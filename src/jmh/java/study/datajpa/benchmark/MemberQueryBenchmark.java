@@ -0,0 +1,87 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.data.domain.PageRequest;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberProjection;
+import study.datajpa.repository.NestedClosedProjections;
+import study.datajpa.repository.UsernameOnly;
+import study.datajpa.repository.UsernameOnlyDto;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the ways {@code MemberRepository} loads members together with their team.
+ * Every variant reads the team name, so lazy loading costs are included.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MemberQueryBenchmark extends SeededContext {
+
+    private static final String USERNAME = username(7);
+
+    @Benchmark
+    public void fetchJoin(Blackhole bh) {
+        readOnly.executeWithoutResult(status -> consumeTeams(memberRepository.findMemberFetchJoin(), bh));
+    }
+
+    @Benchmark
+    public void entityGraph(Blackhole bh) {
+        readOnly.executeWithoutResult(status -> consumeTeams(memberRepository.findMemberEntityGraph(), bh));
+    }
+
+    @Benchmark
+    public void entityGraphByUsername(Blackhole bh) {
+        readOnly.executeWithoutResult(status -> consumeTeams(memberRepository.findEntityGraphByUsername(USERNAME), bh));
+    }
+
+    @Benchmark
+    public void projectionV1(Blackhole bh) {
+        readOnly.executeWithoutResult(status -> {
+            for (UsernameOnly projection : memberRepository.findProjectionsV1ByUsername(USERNAME)) {
+                bh.consume(projection.getUsername());
+            }
+        });
+    }
+
+    @Benchmark
+    public void projectionV2(Blackhole bh) {
+        readOnly.executeWithoutResult(status -> {
+            for (UsernameOnlyDto dto : memberRepository.findProjectionsV2ByUsername(USERNAME)) {
+                bh.consume(dto.getUsername());
+            }
+        });
+    }
+
+    @Benchmark
+    public void projectionV3Nested(Blackhole bh) {
+        readOnly.executeWithoutResult(status -> {
+            for (NestedClosedProjections projection : memberRepository.findProjectionsV3ByUsername(USERNAME, NestedClosedProjections.class)) {
+                bh.consume(projection.getUsername());
+                bh.consume(projection.getTeam().getName());
+            }
+        });
+    }
+
+    @Benchmark
+    public void nativeProjection(Blackhole bh) {
+        readOnly.executeWithoutResult(status -> {
+            for (MemberProjection projection : memberRepository.findByNativeProjection(PageRequest.of(0, 100))) {
+                bh.consume(projection.getUsername());
+                bh.consume(projection.getTeamName());
+            }
+        });
+    }
+
+    private static void consumeTeams(List<Member> members, Blackhole bh) {
+        for (Member member : members) {
+            bh.consume(member.getTeam().getName());
+        }
+    }
+}
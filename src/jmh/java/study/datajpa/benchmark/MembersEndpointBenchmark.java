@@ -0,0 +1,65 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import study.datajpa.execution.VirtualThreads;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code GET /members} from {@value #CLIENTS} concurrent clients, with requests on Tomcat's platform
+ * threads and on virtual threads. The virtual thread run needs a Java 21 runtime ({@code -PjmhJvm=...})
+ * and fails on older ones instead of measuring platform threads twice.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Threads(MembersEndpointBenchmark.CLIENTS)
+@Fork(1)
+public class MembersEndpointBenchmark extends SeededContext {
+
+    static final int CLIENTS = 400;
+
+    @Param({"false", "true"})
+    public boolean virtualThreads;
+
+    private HttpClient client;
+    private String baseUrl;
+
+    @Override
+    protected WebApplicationType webApplicationType() {
+        return WebApplicationType.SERVLET;
+    }
+
+    @Override
+    protected String[] properties() {
+        if (virtualThreads && !VirtualThreads.isSupported()) {
+            throw new IllegalStateException("virtualThreads=true needs a Java 21 runtime, this is "
+                    + System.getProperty("java.version"));
+        }
+        return new String[]{
+                "server.port=0",
+                "execution.virtual-threads=" + virtualThreads
+        };
+    }
+
+    @Override
+    protected void afterSeed() {
+        client = HttpClient.newHttpClient();
+        baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/members";
+    }
+
+    @Benchmark
+    public int members() throws IOException, InterruptedException {
+        int page = ThreadLocalRandom.current().nextInt(members / 20);
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "?size=20&page=" + page)).build();
+        return client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+}
@@ -0,0 +1,83 @@
+package study.datajpa.benchmark;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerGroup;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PreInsertEvent;
+import org.hibernate.event.spi.PreInsertEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.context.ApplicationContext;
+import org.springframework.data.auditing.AuditingHandler;
+import study.datajpa.entity.BaseTimeEntity;
+import study.datajpa.entity.audit.EntityAuditor;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The auditing path {@link EntityAuditor} replaced: Spring Data's {@link AuditingHandler} marks every
+ * inserted entity on its own, reading the clock and resolving the auditor each time.
+ */
+class PerEntityAuditing implements PreInsertEventListener {
+
+    private static final List<String> AUDITED = Arrays.asList("createdDatetime", "lastModifiedDatetime",
+            "createdBy", "lastModifiedBy");
+
+    private final AuditingHandler auditingHandler;
+    private final ConcurrentMap<String, int[]> indexes = new ConcurrentHashMap<>();
+
+    private PerEntityAuditing(AuditingHandler auditingHandler) {
+        this.auditingHandler = auditingHandler;
+    }
+
+    /**
+     * Puts this listener in place of {@link EntityAuditor}'s insert stamping, keeping every other listener.
+     */
+    static void install(ApplicationContext context) {
+        EventListenerGroup<PreInsertEventListener> group = context.getBean(EntityManagerFactory.class)
+                .unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class)
+                .getEventListenerGroup(EventType.PRE_INSERT);
+
+        PerEntityAuditing replacement = new PerEntityAuditing(context.getBean(AuditingHandler.class));
+        List<PreInsertEventListener> listeners = new ArrayList<>();
+        group.fireEventOnEachListener(listeners, (listener, all) -> all.add(listener));
+        group.clearListeners();
+        for (PreInsertEventListener listener : listeners) {
+            group.appendListener(listener instanceof EntityAuditor ? replacement : listener);
+        }
+    }
+
+    @Override
+    public boolean onPreInsert(PreInsertEvent event) {
+        Object entity = event.getEntity();
+        if (!(entity instanceof BaseTimeEntity)) {
+            return false;
+        }
+        auditingHandler.markCreated(entity);
+
+        // the row state was taken before the handler ran
+        EntityPersister persister = event.getPersister();
+        for (int index : indexes.computeIfAbsent(persister.getEntityName(), name -> indexes(persister))) {
+            event.getState()[index] = persister.getPropertyValue(entity, index);
+        }
+        return false;
+    }
+
+    private static int[] indexes(EntityPersister persister) {
+        String[] names = persister.getPropertyNames();
+        List<Integer> found = new ArrayList<>();
+        for (int i = 0; i < names.length; i++) {
+            if (AUDITED.contains(names[i])) {
+                found.add(i);
+            }
+        }
+        return found.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
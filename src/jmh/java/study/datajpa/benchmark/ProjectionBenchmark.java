@@ -0,0 +1,112 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.util.LinkedCaseInsensitiveMap;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberProjection;
+import study.datajpa.repository.NestedClosedProjections;
+import study.datajpa.repository.UsernameOnly;
+import study.datajpa.repository.projection.GeneratedProjectionFactory;
+import study.datajpa.repository.projection.GeneratedProjections;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Materializes projections for a result of {@link #rows} rows with Spring Data's proxies and with
+ * the generated classes. Run with the gc profiler to compare allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProjectionBenchmark {
+
+    @Param({"1000"})
+    public int rows;
+
+    private SpelAwareProxyProjectionFactory proxies;
+    private GeneratedProjectionFactory generated;
+    private List<Member> members;
+    private List<Map<String, Object>> tuples;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        proxies = new SpelAwareProxyProjectionFactory();
+        generated = new GeneratedProjectionFactory(new GeneratedProjections(), getClass().getClassLoader(), null);
+
+        Team team = new Team("team");
+        members = new ArrayList<>();
+        tuples = new ArrayList<>();
+        for (long i = 0; i < rows; i++) {
+            Member member = new Member("member" + i, (int) i);
+            member.setTeam(team);
+            members.add(member);
+
+            Map<String, Object> tuple = new LinkedCaseInsensitiveMap<>();
+            tuple.put("id", i);
+            tuple.put("username", "member" + i);
+            tuple.put("teamName", "team");
+            tuples.add(tuple);
+        }
+    }
+
+    @Benchmark
+    public void openProxy(Blackhole bh) {
+        for (Member member : members) {
+            bh.consume(proxies.createProjection(UsernameOnly.class, member).getUsername());
+        }
+    }
+
+    @Benchmark
+    public void openGenerated(Blackhole bh) {
+        for (Member member : members) {
+            bh.consume(generated.createProjection(UsernameOnly.class, member).getUsername());
+        }
+    }
+
+    @Benchmark
+    public void nestedProxy(Blackhole bh) {
+        for (Member member : members) {
+            NestedClosedProjections projection = proxies.createProjection(NestedClosedProjections.class, member);
+            bh.consume(projection.getUsername());
+            bh.consume(projection.getTeam().getName());
+        }
+    }
+
+    @Benchmark
+    public void nestedGenerated(Blackhole bh) {
+        for (Member member : members) {
+            NestedClosedProjections projection = generated.createProjection(NestedClosedProjections.class, member);
+            bh.consume(projection.getUsername());
+            bh.consume(projection.getTeam().getName());
+        }
+    }
+
+    @Benchmark
+    public void tupleProxy(Blackhole bh) {
+        for (Map<String, Object> tuple : tuples) {
+            MemberProjection projection = proxies.createProjection(MemberProjection.class, tuple);
+            bh.consume(projection.getId());
+            bh.consume(projection.getUsername());
+            bh.consume(projection.getTeamName());
+        }
+    }
+
+    @Benchmark
+    public void tupleGenerated(Blackhole bh) {
+        for (Map<String, Object> tuple : tuples) {
+            MemberProjection projection = generated.createProjection(MemberProjection.class, tuple);
+            bh.consume(projection.getId());
+            bh.consume(projection.getUsername());
+            bh.consume(projection.getTeamName());
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.DataJpaApplication;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+
+import java.util.stream.IntStream;
+
+/**
+ * Starts the application against an in-memory H2 and seeds {@link #members} members spread over
+ * {@value #TEAMS} teams and {@value #USERNAMES} distinct usernames.
+ */
+@State(Scope.Benchmark)
+public abstract class SeededContext {
+
+    static final int TEAMS = 100;
+    static final int USERNAMES = 100;
+
+    // caches, SQL logging and diagnostics would hide or dwarf the query costs being compared
+    private static final String[] PROPERTIES = {
+            "spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+            "spring.jpa.hibernate.ddl-auto=create",
+            "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+            "spring.jpa.properties.hibernate.cache.use_query_cache=false",
+            "spring.jpa.properties.hibernate.generate_statistics=false",
+            "decorator.datasource.enabled=false",
+            "logging.level.org.hibernate.SQL=warn",
+            "spring.profiles.active=prod"
+    };
+
+    @Param({"10000"})
+    public int members;
+
+    protected ConfigurableApplicationContext context;
+    protected MemberRepository memberRepository;
+    protected TransactionTemplate readOnly;
+
+    @Setup(Level.Trial)
+    public void startContext() {
+        context = new SpringApplicationBuilder(DataJpaApplication.class)
+                .web(webApplicationType())
+                .properties(PROPERTIES)
+                .properties(properties())
+                .run();
+        memberRepository = context.getBean(MemberRepository.class);
+        readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+
+        seed();
+        afterSeed();
+    }
+
+    @TearDown(Level.Trial)
+    public void closeContext() {
+        context.close();
+    }
+
+    protected WebApplicationType webApplicationType() {
+        return WebApplicationType.NONE;
+    }
+
+    /**
+     * Extra application properties, applied on top of the benchmark defaults.
+     */
+    protected String[] properties() {
+        return new String[0];
+    }
+
+    protected void afterSeed() {
+    }
+
+    static String username(int i) {
+        return "member" + (i % USERNAMES);
+    }
+
+    private void seed() {
+        Team[] teams = IntStream.range(0, TEAMS)
+                .mapToObj(i -> new Team("team" + i))
+                .toArray(Team[]::new);
+
+        // setTeam instead of changeTeam, so the teams do not hold on to every member
+        memberRepository.saveAllBatched(IntStream.range(0, members).mapToObj(i -> {
+            Member member = new Member(username(i), i % 100);
+            member.setTeam(teams[i % TEAMS]);
+            return member;
+        }));
+    }
+}
@@ -0,0 +1,35 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.jpa.domain.Specification;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberSpecification;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code findAll(Specification)} through the criteria API, as plain lambdas, and through
+ * {@link MemberSpecification}'s compilable specifications, which run as cached JPQL.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SpecificationBenchmark extends SeededContext {
+
+    @Benchmark
+    public List<Member> criteria() {
+        String username = username(ThreadLocalRandom.current().nextInt(USERNAMES));
+        Specification<Member> specification = (root, query, builder) -> builder.equal(root.get("username"), username);
+        return readOnly.execute(status -> memberRepository.findAll(specification));
+    }
+
+    @Benchmark
+    public List<Member> compiled() {
+        String username = username(ThreadLocalRandom.current().nextInt(USERNAMES));
+        return readOnly.execute(status -> memberRepository.findAll(MemberSpecification.username(username)));
+    }
+}
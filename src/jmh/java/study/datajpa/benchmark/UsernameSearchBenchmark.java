@@ -0,0 +1,55 @@
+package study.datajpa.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import study.datajpa.repository.search.UsernameIndex;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lookups in a {@link UsernameIndex} of {@link #usernames} usernames {@code member<i>}, as seeded by
+ * {@link SeededContext}: they all share a prefix, so its trigrams match the whole index. No application
+ * context, this measures the index alone, loading the members found is {@code multiLoad}'s cost.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class UsernameSearchBenchmark {
+
+    private static final int LIMIT = 20;
+
+    @Param({"1000000"})
+    public int usernames;
+
+    private UsernameIndex index;
+    private String[] names;
+
+    @Setup(Level.Trial)
+    public void fill() {
+        index = new UsernameIndex();
+        names = new String[usernames];
+        for (int i = 0; i < usernames; i++) {
+            names[i] = "member" + i;
+            index.put((long) i, names[i]);
+        }
+    }
+
+    @Benchmark
+    public List<Long> prefix() {
+        String name = names[ThreadLocalRandom.current().nextInt(usernames)];
+        return index.prefix(name.substring(0, name.length() - 2), LIMIT);
+    }
+
+    @Benchmark
+    public List<Long> fuzzy() {
+        // a typo in the digits, the part that tells the usernames apart
+        char[] typo = names[ThreadLocalRandom.current().nextInt(usernames)].toCharArray();
+        int last = typo.length - 1;
+        typo[last] = typo[last] == '9' ? '0' : (char) (typo[last] + 1);
+        return index.fuzzy(new String(typo), 1, LIMIT);
+    }
+}
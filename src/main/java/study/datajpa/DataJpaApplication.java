@@ -5,11 +5,12 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
 import org.springframework.data.domain.AuditorAware;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
-
-import java.util.Optional;
-import java.util.UUID;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import study.datajpa.entity.audit.RequestAuditorAware;
+import study.datajpa.repository.support.ExtendedJpaRepositoryFactoryBean;
 
 @EnableJpaAuditing
+@EnableJpaRepositories(repositoryFactoryBeanClass = ExtendedJpaRepositoryFactoryBean.class)
 @SpringBootApplication
 public class DataJpaApplication {
 
@@ -19,7 +20,7 @@ public class DataJpaApplication {
 
     @Bean
     AuditorAware<String> auditorAware() {
-        return () -> Optional.of(UUID.randomUUID().toString());
+        return new RequestAuditorAware();
     }
 
 }
@@ -3,14 +3,22 @@ package study.datajpa.controller;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.web.PageableDefault;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.PathVariable;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import study.datajpa.dto.CursorSliceDto;
 import study.datajpa.dto.MemberDto;
 import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberCursor;
 import study.datajpa.repository.MemberRepository;
+import study.datajpa.service.MemberExportService;
+
+import java.util.stream.IntStream;
 
 @RestController
 @RequiredArgsConstructor
@@ -18,6 +26,7 @@ import study.datajpa.repository.MemberRepository;
 public class MemberController {
 
     private final MemberRepository memberRepository;
+    private final MemberExportService memberExportService;
 
     @GetMapping("v1/{id}")
     String findMember(@PathVariable Long id) {
@@ -34,15 +43,40 @@ public class MemberController {
 
     @GetMapping
     public Page<MemberDto> members(@PageableDefault(size = 5, sort = "username") Pageable pageable) {
-        Page<Member> page = memberRepository.findAll(pageable);
-        return page.map(MemberDto::new);
+        // team is joined in the query, mapping entities would lazy load it per row
+        return memberRepository.findMemberDtoPage(pageable);
+    }
+
+    // Keyset paging: no offset scan and no count query, page size still capped by max-page-size
+    @GetMapping("/keyset")
+    public CursorSliceDto<MemberDto> membersByCursor(@RequestParam(required = false) String cursor,
+                                                     @PageableDefault(size = 5) Pageable pageable) {
+        MemberCursor after;
+        try {
+            after = cursor == null ? null : MemberCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor", e);
+        }
+
+        Slice<Member> slice = memberRepository.findKeysetSlice(after, pageable.getPageSize());
+        MemberCursor next = MemberCursor.next(slice);
+
+        return new CursorSliceDto<>(slice.map(MemberDto::new).getContent(), slice.getNumberOfElements(),
+                slice.hasNext(), next == null ? null : next.encode());
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export() {
+        StreamingResponseBody body = memberExportService::exportNdjson;
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
     }
 
     //    @PostConstruct
     public void init() {
-        for (int i = 0; i < 100; i++) {
-            memberRepository.save(new Member("member" + i, i));
-        }
+        memberRepository.saveAllBatched(IntStream.range(0, 100)
+                .mapToObj(i -> new Member("member" + i, i)));
     }
 
 }
@@ -0,0 +1,13 @@
+package study.datajpa.datasource;
+
+import java.lang.annotation.*;
+
+/**
+ * Long running or bulk work whose connections come from the {@code batch} pool, when there is one.
+ * Takes effect when the annotated method is the one starting the transaction.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface BatchWorkload {
+}
@@ -0,0 +1,38 @@
+package study.datajpa.datasource;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+import org.springframework.core.Ordered;
+
+/**
+ * Applies {@link BatchWorkload}. Ordered before the transaction advisor, so the transaction's
+ * connection is taken inside the batch scope.
+ */
+@Configuration(proxyBeanMethods = false)
+public class BatchWorkloadConfig {
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    static Advisor batchWorkloadAdvisor() {
+        MethodInterceptor interceptor = invocation -> {
+            boolean started = WorkloadRoutingDataSource.beginBatch();
+            try {
+                return invocation.proceed();
+            } finally {
+                if (started) {
+                    WorkloadRoutingDataSource.endBatch();
+                }
+            }
+        };
+        DefaultPointcutAdvisor advisor = new DefaultPointcutAdvisor(
+                AnnotationMatchingPointcut.forMethodAnnotation(BatchWorkload.class), interceptor);
+        advisor.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return advisor;
+    }
+}
@@ -0,0 +1,102 @@
+package study.datajpa.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Connection pools of the application, each a Hikari bean of its own so it gets its own metrics:
+ * <ul>
+ *     <li>{@code primary}: online traffic, tuned through {@code spring.datasource.hikari.*}</li>
+ *     <li>{@code batch}: {@link BatchWorkload} work such as exports and bulk writes, so it cannot
+ *     starve online traffic; enabled by {@code datasource.batch.enabled}, tuned through
+ *     {@code datasource.batch.hikari.*}</li>
+ *     <li>{@code replica}: read-only work, enabled by {@code datasource.replica.url}, see
+ *     {@link ReplicaRoutingDataSource}</li>
+ * </ul>
+ * The data source the application uses routes between them once a connection is actually used.
+ * With {@code execution.virtual-threads}, checkouts from the primary pool are capped at its size
+ * by a {@link ConcurrencyLimitedDataSource}.
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(ReplicaProperties.class)
+public class DataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = pool(properties);
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConditionalOnProperty("datasource.batch.enabled")
+    @ConfigurationProperties("datasource.batch.hikari")
+    HikariDataSource batchDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = pool(properties);
+        dataSource.setPoolName("batch");
+        return dataSource;
+    }
+
+    @Bean
+    @ConditionalOnProperty("datasource.replica.url")
+    @ConfigurationProperties("datasource.replica.hikari")
+    HikariDataSource replicaDataSource(DataSourceProperties properties, ReplicaProperties replica) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .driverClassName(properties.determineDriverClassName())
+                .url(replica.getUrl())
+                .username(replica.getUsername() != null ? replica.getUsername() : properties.determineUsername())
+                .password(replica.getPassword() != null ? replica.getPassword() : properties.determinePassword())
+                .build();
+        dataSource.setPoolName("replica");
+        dataSource.setReadOnly(true);
+        return dataSource;
+    }
+
+    @Bean
+    @Primary
+    DataSource dataSource(HikariDataSource primaryDataSource,
+                          ObjectProvider<HikariDataSource> batchDataSource,
+                          ObjectProvider<HikariDataSource> replicaDataSource,
+                          ReplicaProperties replica,
+                          @Value("${execution.virtual-threads:false}") boolean virtualThreads,
+                          @Value("${execution.connection-wait-timeout:30s}") Duration connectionWaitTimeout) {
+        DataSource online = primaryDataSource;
+        // virtual threads are not bounded by the servlet thread pool, so connection use is bounded here
+        if (virtualThreads) {
+            online = new ConcurrencyLimitedDataSource(primaryDataSource, primaryDataSource.getMaximumPoolSize(),
+                    connectionWaitTimeout);
+        }
+
+        DataSource writes = online;
+        HikariDataSource batch = batchDataSource.getIfAvailable();
+        if (batch != null) {
+            writes = new WorkloadRoutingDataSource(online, batch);
+        }
+
+        DataSource reads = writes;
+        HikariDataSource replicaPool = replicaDataSource.getIfAvailable();
+        if (replicaPool != null) {
+            reads = new ReplicaRoutingDataSource(writes, replicaPool, replica);
+        }
+        return new LazyConnectionDataSourceProxy(reads);
+    }
+
+    private static HikariDataSource pool(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+}
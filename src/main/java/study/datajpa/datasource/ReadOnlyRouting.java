@@ -0,0 +1,31 @@
+package study.datajpa.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * Marks work outside a {@code @Transactional(readOnly = true)} method as replica safe, e.g. a
+ * repository query carrying the {@code org.hibernate.readOnly} hint.
+ */
+public final class ReadOnlyRouting {
+
+    private static final ThreadLocal<Boolean> READ_ONLY = new ThreadLocal<>();
+
+    private ReadOnlyRouting() {
+    }
+
+    public static boolean isActive() {
+        return READ_ONLY.get() != null;
+    }
+
+    public static <T> T call(Supplier<T> work) {
+        if (isActive()) {
+            return work.get();
+        }
+        READ_ONLY.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            READ_ONLY.remove();
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package study.datajpa.datasource;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Read replica settings. Routing is enabled by setting {@code datasource.replica.url};
+ * the replica pool itself is tuned through {@code datasource.replica.hikari.*}.
+ */
+@Getter
+@Setter
+@ConfigurationProperties("datasource.replica")
+public class ReplicaProperties {
+
+    private String url;
+
+    /**
+     * Defaults to {@code spring.datasource.username}/{@code password}.
+     */
+    private String username;
+    private String password;
+
+    /**
+     * Query returning the replication lag in seconds, e.g.
+     * {@code select extract(epoch from now() - pg_last_xact_replay_timestamp())} on PostgreSQL.
+     * Without it only the replica's availability is checked.
+     */
+    private String lagQuery;
+
+    /**
+     * Reads go to the primary while the replica lags behind by more than this.
+     */
+    private Duration maxLag = Duration.ofSeconds(5);
+
+    /**
+     * How long a lag or availability check result is trusted.
+     */
+    private Duration checkInterval = Duration.ofSeconds(5);
+}
@@ -0,0 +1,116 @@
+package study.datajpa.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hands out replica connections to read-only transactions and {@link ReadOnlyRouting} scopes, and
+ * primary connections to everything else.
+ * <p>
+ * The route is decided when a connection is requested, so this must sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}; otherwise the
+ * transaction manager fetches the connection before the read-only flag is set. Reads fall back to
+ * the primary while the replica is unreachable or lags behind by more than
+ * {@link ReplicaProperties#getMaxLag()}.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource {
+
+    private final DataSource primary;
+    private final DataSource replica;
+    private final ReplicaProperties properties;
+
+    private final ReentrantLock checkLock = new ReentrantLock();
+    private volatile boolean replicaUsable = true;
+    private volatile long nextCheckAt = System.nanoTime();
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, ReplicaProperties properties) {
+        this.primary = primary;
+        this.replica = replica;
+        this.properties = properties;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return readOnly() ? replicaConnection() : primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        // credentials belong to one pool and cannot be routed
+        return primary.getConnection(username, password);
+    }
+
+    private static boolean readOnly() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly() || ReadOnlyRouting.isActive();
+    }
+
+    private Connection replicaConnection() throws SQLException {
+        if (!replicaUsable()) {
+            return primary.getConnection();
+        }
+        try {
+            return replica.getConnection();
+        } catch (SQLException e) {
+            markUnusable("replica unavailable", e);
+            return primary.getConnection();
+        }
+    }
+
+    private boolean replicaUsable() {
+        // one thread checks while the others keep the last result
+        if (System.nanoTime() - nextCheckAt >= 0 && checkLock.tryLock()) {
+            try {
+                if (System.nanoTime() - nextCheckAt >= 0) {
+                    check();
+                }
+            } finally {
+                checkLock.unlock();
+            }
+        }
+        return replicaUsable;
+    }
+
+    private void check() {
+        try (Connection connection = replica.getConnection()) {
+            if (properties.getLagQuery() != null) {
+                double lagSeconds = lagSeconds(connection);
+                if (lagSeconds * 1000 > properties.getMaxLag().toMillis()) {
+                    markUnusable("replica lags behind by " + lagSeconds + "s", null);
+                    return;
+                }
+            }
+            if (!replicaUsable) {
+                log.info("Routing reads to the replica again");
+            }
+            replicaUsable = true;
+            nextCheckAt = System.nanoTime() + properties.getCheckInterval().toNanos();
+        } catch (SQLException e) {
+            markUnusable("replica check failed", e);
+        }
+    }
+
+    private double lagSeconds(Connection connection) throws SQLException {
+        try (Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(properties.getLagQuery())) {
+            // no row or null means the replica has nothing to replay
+            return resultSet.next() ? resultSet.getDouble(1) : 0;
+        }
+    }
+
+    private void markUnusable(String reason, SQLException e) {
+        if (replicaUsable) {
+            log.warn("Routing reads to the primary for {}: {}", properties.getCheckInterval(), reason, e);
+        }
+        replicaUsable = false;
+        nextCheckAt = System.nanoTime() + properties.getCheckInterval().toNanos();
+    }
+}
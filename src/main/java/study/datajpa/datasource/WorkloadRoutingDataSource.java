@@ -0,0 +1,65 @@
+package study.datajpa.datasource;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.function.Supplier;
+
+/**
+ * Hands out {@code batch} pool connections inside {@link #callBatch} scopes and {@code primary} pool
+ * connections otherwise.
+ */
+public class WorkloadRoutingDataSource extends AbstractDataSource {
+
+    private static final ThreadLocal<Boolean> BATCH = new ThreadLocal<>();
+
+    private final DataSource primary;
+    private final DataSource batch;
+
+    public WorkloadRoutingDataSource(DataSource primary, DataSource batch) {
+        this.primary = primary;
+        this.batch = batch;
+    }
+
+    public static boolean isBatch() {
+        return BATCH.get() != null;
+    }
+
+    public static <T> T callBatch(Supplier<T> work) {
+        boolean started = beginBatch();
+        try {
+            return work.get();
+        } finally {
+            if (started) {
+                endBatch();
+            }
+        }
+    }
+
+    /**
+     * Returns {@code false} when the thread already runs batch work, the outer scope ends it then.
+     */
+    static boolean beginBatch() {
+        if (isBatch()) {
+            return false;
+        }
+        BATCH.set(Boolean.TRUE);
+        return true;
+    }
+
+    static void endBatch() {
+        BATCH.remove();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return isBatch() ? batch.getConnection() : primary.getConnection();
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return isBatch() ? batch.getConnection(username, password) : primary.getConnection(username, password);
+    }
+}
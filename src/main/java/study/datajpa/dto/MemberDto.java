@@ -15,7 +15,7 @@ public class MemberDto {
     public MemberDto(Member member) {
         this.id = member.getId();
         this.username = member.getUsername();
-        this.teamName = member.getTeam().getName();
+        this.teamName = member.getTeam() == null ? null : member.getTeam().getName();
     }
 
 }
@@ -3,9 +3,11 @@ package study.datajpa.entity;
 import lombok.Getter;
 import org.springframework.data.annotation.CreatedBy;
 import org.springframework.data.annotation.LastModifiedBy;
+import study.datajpa.entity.audit.AuditContext;
 
 import javax.persistence.Column;
 import javax.persistence.MappedSuperclass;
+import javax.persistence.PreUpdate;
 
 @MappedSuperclass
 @Getter
@@ -18,4 +20,8 @@ public class BaseEntity extends BaseTimeEntity {
     @LastModifiedBy
     private String lastModifiedBy;
 
+    @PreUpdate
+    void stampModifiedBy() {
+        lastModifiedBy = AuditContext.currentAuditor();
+    }
 }
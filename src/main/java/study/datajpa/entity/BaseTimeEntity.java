@@ -3,14 +3,18 @@ package study.datajpa.entity;
 import lombok.Getter;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedDate;
-import org.springframework.data.jpa.domain.support.AuditingEntityListener;
+import study.datajpa.entity.audit.AuditContext;
 
 import javax.persistence.Column;
-import javax.persistence.EntityListeners;
 import javax.persistence.MappedSuperclass;
+import javax.persistence.PreUpdate;
 import java.time.LocalDateTime;
 
-@EntityListeners(AuditingEntityListener.class)
+/**
+ * Audit fields are filled by {@link study.datajpa.entity.audit.EntityAuditor} when the row is inserted.
+ * Updates are stamped in {@code @PreUpdate}, which runs before the dirty properties are final, so a
+ * {@code @DynamicUpdate} statement still includes the audit columns.
+ */
 @MappedSuperclass
 @Getter
 public class BaseTimeEntity {
@@ -22,4 +26,8 @@ public class BaseTimeEntity {
     @LastModifiedDate
     private LocalDateTime lastModifiedDatetime;
 
+    @PreUpdate
+    void stampModified() {
+        lastModifiedDatetime = AuditContext.now();
+    }
 }
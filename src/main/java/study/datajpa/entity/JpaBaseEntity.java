@@ -1,6 +1,7 @@
 package study.datajpa.entity;
 
 import lombok.Getter;
+import study.datajpa.entity.audit.AuditContext;
 
 import javax.persistence.Column;
 import javax.persistence.MappedSuperclass;
@@ -18,13 +19,13 @@ public class JpaBaseEntity {
 
     @PrePersist
     public void prePersist() {
-        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime now = AuditContext.now();
         createdDatetime = now;
         updatedDatetime = now;
     }
 
     @PreUpdate
     public void preUpdate() {
-        updatedDatetime = LocalDateTime.now();
+        updatedDatetime = AuditContext.now();
     }
 }
@@ -0,0 +1,114 @@
+package study.datajpa.entity.audit;
+
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.event.spi.EventSource;
+import org.springframework.data.domain.AuditorAware;
+
+import java.lang.ref.WeakReference;
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.Optional;
+import java.util.WeakHashMap;
+
+/**
+ * Audit values shared by every entity written in one flush: the clock is read and the auditor
+ * resolved at most once per flush instead of once per entity. A session keeps its context until its
+ * transaction completes, and every flush starts it over.
+ */
+public final class AuditContext {
+
+    // sessions are confined to one thread, so the flush in progress lives here
+    private static final ThreadLocal<AuditContext> CURRENT = new ThreadLocal<>();
+    private static final ThreadLocal<Map<SessionImplementor, AuditContext>> SESSIONS = new ThreadLocal<>();
+
+    private final WeakReference<SessionImplementor> session;
+    private final AuditorAware<?> auditorAware;
+    private LocalDateTime timestamp;
+    private Optional<String> auditor;
+
+    private AuditContext(SessionImplementor session, AuditorAware<?> auditorAware) {
+        this.session = new WeakReference<>(session);
+        this.auditorAware = auditorAware;
+    }
+
+    /**
+     * Timestamp of the flush in progress on this thread, or the current time outside a flush.
+     */
+    public static LocalDateTime now() {
+        AuditContext context = CURRENT.get();
+        return context != null && context.isFlushing() ? context.timestamp() : LocalDateTime.now();
+    }
+
+    /**
+     * Auditor of the flush in progress on this thread, {@code null} outside a flush.
+     */
+    public static String currentAuditor() {
+        AuditContext context = CURRENT.get();
+        return context != null && context.isFlushing() ? context.auditor().orElse(null) : null;
+    }
+
+    static void begin(EventSource session, AuditorAware<?> auditorAware) {
+        Map<SessionImplementor, AuditContext> contexts = SESSIONS.get();
+        if (contexts == null) {
+            contexts = new WeakHashMap<>();
+            SESSIONS.set(contexts);
+        }
+        AuditContext context = contexts.get(session);
+        if (context == null) {
+            context = new AuditContext(session, auditorAware);
+            contexts.put(session, context);
+            // once per transaction, auto-flushes run before every query. A flush that throws never
+            // reaches end(), its transaction still completes
+            AuditContext registered = context;
+            session.getActionQueue().registerProcess((success, completed) -> registered.clear());
+        }
+        context.timestamp = null;
+        context.auditor = null;
+        CURRENT.set(context);
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Context of the session's flush, or a throwaway one for writes outside a flush (e.g. identity inserts).
+     */
+    static AuditContext of(SessionImplementor session, AuditorAware<?> auditorAware) {
+        AuditContext context = CURRENT.get();
+        return context != null && context.session.get() == session && context.isFlushing() ? context
+                : new AuditContext(session, auditorAware);
+    }
+
+    private boolean isFlushing() {
+        SessionImplementor current = session.get();
+        return current != null && current.isOpen() && current.getPersistenceContextInternal().isFlushing();
+    }
+
+    private void clear() {
+        if (CURRENT.get() == this) {
+            CURRENT.remove();
+        }
+        Map<SessionImplementor, AuditContext> contexts = SESSIONS.get();
+        if (contexts != null) {
+            contexts.values().remove(this);
+            if (contexts.isEmpty()) {
+                SESSIONS.remove();
+            }
+        }
+    }
+
+    LocalDateTime timestamp() {
+        if (timestamp == null) {
+            timestamp = LocalDateTime.now();
+        }
+        return timestamp;
+    }
+
+    Optional<String> auditor() {
+        if (auditor == null) {
+            auditor = auditorAware.getCurrentAuditor().map(String::valueOf);
+        }
+        return auditor;
+    }
+}
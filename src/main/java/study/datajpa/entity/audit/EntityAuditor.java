@@ -0,0 +1,164 @@
+package study.datajpa.entity.audit;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.*;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.data.annotation.CreatedBy;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.LastModifiedBy;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ReflectionUtils;
+import study.datajpa.entity.BaseTimeEntity;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.time.LocalDateTime;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Fills the Spring Data audit fields of {@link study.datajpa.entity.BaseEntity} subclasses right before
+ * Hibernate inserts them. Values go into the insert state and the entity through the persister's
+ * property accessors, with the property indexes looked up once per entity type, and all entities of a
+ * flush share one {@link AuditContext}.
+ * <p>
+ * Updates are stamped by the entities' {@code @PreUpdate} callbacks from the same context. They run
+ * before Hibernate settles the dirty properties, which {@code PRE_UPDATE} does not, so
+ * {@code @DynamicUpdate} entities still write their audit columns.
+ * <p>
+ * Unlike {@code AuditingEntityListener}, values are set when the row is written, not on
+ * {@code persist()}.
+ */
+@Component
+public class EntityAuditor implements PreInsertEventListener {
+
+    private final EntityManagerFactory emf;
+    private final AuditorAware<?> auditorAware;
+
+    private final ConcurrentMap<String, AuditedProperties> properties = new ConcurrentHashMap<>();
+
+    public EntityAuditor(EntityManagerFactory emf, AuditorAware<?> auditorAware) {
+        this.emf = emf;
+        this.auditorAware = auditorAware;
+    }
+
+    @PostConstruct
+    void register() {
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+
+        registry.prependListeners(EventType.FLUSH, new FlushStart(auditorAware));
+        registry.prependListeners(EventType.AUTO_FLUSH, new FlushStart(auditorAware));
+        registry.appendListeners(EventType.FLUSH, new FlushEnd());
+        registry.appendListeners(EventType.AUTO_FLUSH, new FlushEnd());
+        registry.appendListeners(EventType.PRE_INSERT, this);
+    }
+
+    @Override
+    public boolean onPreInsert(PreInsertEvent event) {
+        AuditedProperties audited = audited(event.getPersister());
+        if (audited.isEmpty()) {
+            return false;
+        }
+        EntityPersister persister = event.getPersister();
+        Object entity = event.getEntity();
+        Object[] state = event.getState();
+        AuditContext context = AuditContext.of(event.getSession(), auditorAware);
+        LocalDateTime now = context.timestamp();
+        String auditor = context.auditor().orElse(null);
+        audited.set(audited.createdDate, persister, entity, state, now);
+        audited.set(audited.createdBy, persister, entity, state, auditor);
+        audited.set(audited.lastModifiedDate, persister, entity, state, now);
+        audited.set(audited.lastModifiedBy, persister, entity, state, auditor);
+        return false;
+    }
+
+    private AuditedProperties audited(EntityPersister persister) {
+        AuditedProperties audited = properties.get(persister.getEntityName());
+        if (audited == null) {
+            audited = properties.computeIfAbsent(persister.getEntityName(), name -> new AuditedProperties(persister));
+        }
+        return audited;
+    }
+
+    private static class FlushStart implements FlushEventListener, AutoFlushEventListener {
+
+        private final AuditorAware<?> auditorAware;
+
+        private FlushStart(AuditorAware<?> auditorAware) {
+            this.auditorAware = auditorAware;
+        }
+
+        @Override
+        public void onFlush(FlushEvent event) {
+            AuditContext.begin(event.getSession(), auditorAware);
+        }
+
+        @Override
+        public void onAutoFlush(AutoFlushEvent event) {
+            AuditContext.begin(event.getSession(), auditorAware);
+        }
+    }
+
+    private static class FlushEnd implements FlushEventListener, AutoFlushEventListener {
+
+        @Override
+        public void onFlush(FlushEvent event) {
+            AuditContext.end();
+        }
+
+        @Override
+        public void onAutoFlush(AutoFlushEvent event) {
+            AuditContext.end();
+        }
+    }
+
+    /**
+     * Persister property indexes of the audit fields, {@code -1} when the entity has no such field.
+     */
+    private static class AuditedProperties {
+
+        private final int createdDate;
+        private final int createdBy;
+        private final int lastModifiedDate;
+        private final int lastModifiedBy;
+
+        private AuditedProperties(EntityPersister persister) {
+            Class<?> type = persister.getMappedClass();
+            // other entities (e.g. Item) keep listening through AuditingEntityListener
+            boolean audited = BaseTimeEntity.class.isAssignableFrom(type);
+            this.createdDate = audited ? index(persister, type, CreatedDate.class) : -1;
+            this.createdBy = audited ? index(persister, type, CreatedBy.class) : -1;
+            this.lastModifiedDate = audited ? index(persister, type, LastModifiedDate.class) : -1;
+            this.lastModifiedBy = audited ? index(persister, type, LastModifiedBy.class) : -1;
+        }
+
+        private static int index(EntityPersister persister, Class<?> type, Class<? extends Annotation> annotation) {
+            Field[] found = new Field[1];
+            ReflectionUtils.doWithFields(type, field -> found[0] = field, field -> field.isAnnotationPresent(annotation));
+            if (found[0] == null) {
+                return -1;
+            }
+            Integer index = persister.getEntityMetamodel().getPropertyIndexOrNull(found[0].getName());
+            return index != null ? index : -1;
+        }
+
+        boolean isEmpty() {
+            return createdDate < 0 && createdBy < 0 && lastModifiedDate < 0 && lastModifiedBy < 0;
+        }
+
+        void set(int index, EntityPersister persister, Object entity, Object[] state, Object value) {
+            if (index < 0) {
+                return;
+            }
+            state[index] = value;
+            persister.setPropertyValue(entity, index, value);
+        }
+    }
+}
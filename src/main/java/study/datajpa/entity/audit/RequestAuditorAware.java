@@ -0,0 +1,42 @@
+package study.datajpa.entity.audit;
+
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Resolves the auditor once per request and keeps it in the request attributes.
+ * Work outside a request (tests, batch jobs, benchmarks) is audited as one system auditor.
+ */
+public class RequestAuditorAware implements AuditorAware<String> {
+
+    private static final String ATTRIBUTE = RequestAuditorAware.class.getName() + ".AUDITOR";
+
+    private final String systemAuditor = randomId();
+
+    @Override
+    public Optional<String> getCurrentAuditor() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return Optional.of(systemAuditor);
+        }
+
+        Object auditor = attributes.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+        if (auditor == null) {
+            auditor = randomId();
+            attributes.setAttribute(ATTRIBUTE, auditor, RequestAttributes.SCOPE_REQUEST);
+        }
+        return Optional.of((String) auditor);
+    }
+
+    // there is no authentication yet, so every request is its own auditor;
+    // ThreadLocalRandom instead of UUID.randomUUID() keeps SecureRandom's lock off the write path
+    private static String randomId() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return new UUID(random.nextLong(), random.nextLong()).toString();
+    }
+}
@@ -0,0 +1,48 @@
+package study.datajpa.execution;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.AsyncConfigurer;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.Executor;
+
+/**
+ * Runs {@code @Async} repository methods, e.g. {@code MemberRepository.findAsyncByUsername}, on a
+ * bounded pool. Each call gets a transaction and {@code EntityManager} of its own on a pool thread, so
+ * independent reads overlap.
+ * <p>
+ * The pool is kept below the primary connection pool, so fan-out reads cannot take every connection
+ * from synchronous requests. Once the queue is full, calls fail with a {@code TaskRejectedException}
+ * instead of piling up. The executor is deliberately not a bean: an {@code Executor} bean would
+ * replace Boot's {@code applicationTaskExecutor}, which serves Spring MVC's async requests.
+ */
+@EnableAsync
+@Configuration(proxyBeanMethods = false)
+public class AsyncQueryConfig implements AsyncConfigurer, DisposableBean {
+
+    private final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+
+    public AsyncQueryConfig(@Value("${execution.async-queries.pool-size:4}") int poolSize,
+                            @Value("${execution.async-queries.queue-capacity:100}") int queueCapacity) {
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("async-query-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(10);
+        executor.initialize();
+    }
+
+    @Override
+    public Executor getAsyncExecutor() {
+        return executor;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,45 @@
+package study.datajpa.execution;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Runs Tomcat's request processing and Spring MVC's async work (e.g. streamed exports) on virtual
+ * threads when {@code execution.virtual-threads} is set and the runtime supports them. Concurrency is
+ * then bounded by the database instead of the servlet thread pool, see
+ * {@link study.datajpa.datasource.ConcurrencyLimitedDataSource}.
+ */
+@Slf4j
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty("execution.virtual-threads")
+public class VirtualThreadConfig implements WebMvcConfigurer {
+
+    private final Optional<ExecutorService> requestExecutor = VirtualThreads.newThreadPerTaskExecutor("http-v-");
+    private final Optional<ExecutorService> asyncExecutor = VirtualThreads.newThreadPerTaskExecutor("mvc-async-v-");
+
+    public VirtualThreadConfig() {
+        if (requestExecutor.isEmpty()) {
+            log.warn("execution.virtual-threads is set but Java {} has no virtual threads, requests stay on platform threads",
+                    System.getProperty("java.specification.version"));
+        }
+    }
+
+    @Bean
+    TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> requestExecutor.ifPresent(protocolHandler::setExecutor);
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        asyncExecutor.ifPresent(executor -> configurer.setTaskExecutor(new TaskExecutorAdapter(executor)));
+    }
+}
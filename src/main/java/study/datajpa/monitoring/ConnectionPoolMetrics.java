@@ -0,0 +1,40 @@
+package study.datajpa.monitoring;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * Adds {@code hikaricp.connections.utilization}, active over maximum connections, to the
+ * {@code hikaricp.*} pool metrics Spring Boot registers for every pool. A pool running close to 1
+ * while {@code hikaricp.connections.acquire} grows is where connection acquisition becomes the bottleneck.
+ */
+@Component
+public class ConnectionPoolMetrics implements MeterBinder {
+
+    private final ObjectProvider<HikariDataSource> pools;
+
+    public ConnectionPoolMetrics(ObjectProvider<HikariDataSource> pools) {
+        this.pools = pools;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        pools.orderedStream().forEach(pool -> Gauge.builder("hikaricp.connections.utilization", pool, ConnectionPoolMetrics::utilization)
+                .tag("pool", pool.getPoolName())
+                .register(registry));
+    }
+
+    private static double utilization(HikariDataSource pool) {
+        HikariPoolMXBean bean = pool.getHikariPoolMXBean();
+        // the pool starts with the first connection request
+        if (bean == null || pool.getMaximumPoolSize() <= 0) {
+            return 0;
+        }
+        return (double) bean.getActiveConnections() / pool.getMaximumPoolSize();
+    }
+}
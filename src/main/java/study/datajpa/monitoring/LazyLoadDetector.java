@@ -0,0 +1,83 @@
+package study.datajpa.monitoring;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.*;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Warns when one session lazily initializes the same association over and over,
+ * the usual sign of an N+1 query. Not active in production.
+ */
+@Slf4j
+@Component
+@Profile("!prod")
+public class LazyLoadDetector implements LoadEventListener, InitializeCollectionEventListener {
+
+    private final EntityManagerFactory emf;
+    private final int threshold;
+
+    // sessions are confined to one thread, so the current session's counts live here
+    private final ThreadLocal<SessionLoads> loads = new ThreadLocal<>();
+
+    public LazyLoadDetector(EntityManagerFactory emf, @Value("${jpa.lazy-load-detection.threshold:10}") int threshold) {
+        this.emf = emf;
+        this.threshold = threshold;
+    }
+
+    @PostConstruct
+    void register() {
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+
+        registry.appendListeners(EventType.LOAD, this);
+        registry.appendListeners(EventType.INIT_COLLECTION, this);
+    }
+
+    @Override
+    public void onLoad(LoadEvent event, LoadType loadType) {
+        // proxies are initialized through an immediate load
+        if (loadType == LoadEventListener.IMMEDIATE_LOAD) {
+            record(event.getSession(), event.getEntityClassName());
+        }
+    }
+
+    @Override
+    public void onInitializeCollection(InitializeCollectionEvent event) {
+        record(event.getSession(), event.getCollection().getRole());
+    }
+
+    private void record(EventSource session, String role) {
+        SessionLoads current = loads.get();
+        if (current == null || current.session.get() != session) {
+            current = new SessionLoads(session);
+            loads.set(current);
+        }
+
+        int count = current.counts.merge(role, 1, Integer::sum);
+        if (count == threshold) {
+            log.warn("{} was lazily loaded {} times in one session, fetch it with the query instead (N+1)",
+                    role, count, new Throwable("lazy load call site"));
+        }
+    }
+
+    private static class SessionLoads {
+
+        private final WeakReference<EventSource> session;
+        private final Map<String, Integer> counts = new HashMap<>();
+
+        private SessionLoads(EventSource session) {
+            this.session = new WeakReference<>(session);
+        }
+    }
+}
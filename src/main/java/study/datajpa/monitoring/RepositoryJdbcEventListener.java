@@ -0,0 +1,32 @@
+package study.datajpa.monitoring;
+
+import com.p6spy.engine.common.ResultSetInformation;
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+
+/**
+ * Feeds statement and row counts from the p6spy proxied data source into {@link RepositoryMetrics}.
+ */
+@Component
+@RequiredArgsConstructor
+public class RepositoryJdbcEventListener extends SimpleJdbcEventListener {
+
+    private final RepositoryMetrics metrics;
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        metrics.statementExecuted();
+    }
+
+    @Override
+    public void onAfterResultSetNext(ResultSetInformation resultSetInformation, long timeElapsedNanos,
+                                     boolean hasNext, SQLException e) {
+        if (hasNext) {
+            metrics.rowFetched();
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package study.datajpa.monitoring;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import org.aopalliance.intercept.MethodInvocation;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostLoadEvent;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManagerFactory;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records per repository method: invocations and latency ({@code repository.invocations}),
+ * SQL statements executed ({@code repository.statements}), rows read ({@code repository.rows})
+ * and entities hydrated ({@code repository.entities}).
+ * <p>
+ * JDBC and Hibernate callbacks are attributed to the innermost repository call running on the
+ * current thread; nested calls also count towards their callers.
+ */
+@Component
+public class RepositoryMetrics implements PostLoadEventListener {
+
+    // only set while a repository method runs, JDBC and Hibernate callbacks also come from other threads
+    private static final ThreadLocal<Deque<Frame>> FRAMES = new ThreadLocal<>();
+
+    private final MeterRegistry registry;
+    private final EntityManagerFactory emf;
+    private final ConcurrentMap<String, Meters> meters = new ConcurrentHashMap<>();
+
+    public RepositoryMetrics(MeterRegistry registry, EntityManagerFactory emf) {
+        this.registry = registry;
+        this.emf = emf;
+    }
+
+    @PostConstruct
+    void register() {
+        emf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class)
+                .appendListeners(EventType.POST_LOAD, this);
+    }
+
+    public Object record(String repository, String method, MethodInvocation invocation) throws Throwable {
+        Deque<Frame> frames = FRAMES.get();
+        if (frames == null) {
+            frames = new ArrayDeque<>();
+            FRAMES.set(frames);
+        }
+        Frame frame = new Frame(repository + '.' + method);
+        frames.push(frame);
+
+        String exception = "none";
+        long start = System.nanoTime();
+        try {
+            return invocation.proceed();
+        } catch (Throwable e) {
+            exception = e.getClass().getSimpleName();
+            throw e;
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            frames.pop();
+            Frame caller = frames.peek();
+            if (caller != null) {
+                caller.add(frame);
+            } else {
+                FRAMES.remove();
+            }
+            meters(repository, method, exception).record(elapsed, frame);
+        }
+    }
+
+    /**
+     * Innermost repository method running on this thread, e.g. {@code MemberRepository.findByUsername(String)}.
+     */
+    @Nullable
+    String currentMethod() {
+        Frame frame = currentFrame();
+        return frame != null ? frame.method : null;
+    }
+
+    void statementExecuted() {
+        Frame frame = currentFrame();
+        if (frame != null) {
+            frame.statements++;
+        }
+    }
+
+    void rowFetched() {
+        Frame frame = currentFrame();
+        if (frame != null) {
+            frame.rows++;
+        }
+    }
+
+    @Override
+    public void onPostLoad(PostLoadEvent event) {
+        Frame frame = currentFrame();
+        if (frame != null) {
+            frame.entities++;
+        }
+    }
+
+    @Nullable
+    private static Frame currentFrame() {
+        Deque<Frame> frames = FRAMES.get();
+        return frames != null ? frames.peek() : null;
+    }
+
+    private Meters meters(String repository, String method, String exception) {
+        return meters.computeIfAbsent(repository + '.' + method + '/' + exception,
+                key -> new Meters(registry, repository, method, exception));
+    }
+
+    private static class Frame {
+
+        private final String method;
+        private long statements;
+        private long rows;
+        private long entities;
+
+        private Frame(String method) {
+            this.method = method;
+        }
+
+        private void add(Frame other) {
+            statements += other.statements;
+            rows += other.rows;
+            entities += other.entities;
+        }
+    }
+
+    private static class Meters {
+
+        private final Timer timer;
+        private final DistributionSummary statements;
+        private final DistributionSummary rows;
+        private final DistributionSummary entities;
+
+        private Meters(MeterRegistry registry, String repository, String method, String exception) {
+            Tags tags = Tags.of("repository", repository, "method", method);
+            this.timer = Timer.builder("repository.invocations")
+                    .tags(tags)
+                    .tag("exception", exception)
+                    .register(registry);
+            this.statements = DistributionSummary.builder("repository.statements").tags(tags).register(registry);
+            this.rows = DistributionSummary.builder("repository.rows").tags(tags).register(registry);
+            this.entities = DistributionSummary.builder("repository.entities").tags(tags).register(registry);
+        }
+
+        private void record(long elapsedNanos, Frame frame) {
+            timer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+            statements.record(frame.statements);
+            rows.record(frame.rows);
+            entities.record(frame.entities);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package study.datajpa.monitoring;
+
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.context.annotation.Role;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Instruments the hand written {@code @Repository} classes. Spring Data repositories are
+ * instrumented by {@link study.datajpa.repository.support.ExtendedJpaRepositoryFactoryBean}.
+ */
+@Configuration(proxyBeanMethods = false)
+public class RepositoryMetricsConfig {
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    static Advisor repositoryMetricsAdvisor(@Lazy RepositoryMetrics metrics) {
+        return new DefaultPointcutAdvisor(AnnotationMatchingPointcut.forClassAnnotation(Repository.class),
+                new RepositoryMetricsInterceptor(metrics, null));
+    }
+}
@@ -0,0 +1,46 @@
+package study.datajpa.monitoring;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.lang.Nullable;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
+public class RepositoryMetricsInterceptor implements MethodInterceptor {
+
+    private final RepositoryMetrics metrics;
+    @Nullable
+    private final String repository;
+    private final ConcurrentMap<Method, String> signatures = new ConcurrentHashMap<>();
+
+    /**
+     * @param repository name to tag the metrics with, or {@code null} to use the target class name
+     */
+    public RepositoryMetricsInterceptor(RepositoryMetrics metrics, @Nullable String repository) {
+        this.metrics = metrics;
+        this.repository = repository;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        if (ReflectionUtils.isObjectMethod(invocation.getMethod())) {
+            return invocation.proceed();
+        }
+        String name = repository != null ? repository : AopUtils.getTargetClass(invocation.getThis()).getSimpleName();
+        return metrics.record(name, signatures.computeIfAbsent(invocation.getMethod(), RepositoryMetricsInterceptor::signature),
+                invocation);
+    }
+
+    // overloads such as findAll(Sort) and findAll(Pageable) run different queries, so they get their own tag
+    private static String signature(Method method) {
+        return Arrays.stream(method.getParameterTypes())
+                .map(Class::getSimpleName)
+                .collect(Collectors.joining(", ", method.getName() + "(", ")"));
+    }
+}
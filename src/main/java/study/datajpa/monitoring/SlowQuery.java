@@ -0,0 +1,41 @@
+package study.datajpa.monitoring;
+
+import lombok.Getter;
+import org.springframework.lang.Nullable;
+
+import java.time.Instant;
+
+/**
+ * One statement that took longer than {@code jdbc.slow-query.threshold}. The plan is filled in
+ * after the fact, it stays {@code null} until the EXPLAIN has run or when it was skipped.
+ */
+@Getter
+public class SlowQuery {
+
+    private final Instant executedAt;
+    private final long elapsedMillis;
+    @Nullable
+    private final String repositoryMethod;
+    private final String thread;
+    private final String sql;
+    private final String sqlWithValues;
+    @Nullable
+    private final String error;
+    @Nullable
+    private volatile String plan;
+
+    SlowQuery(Instant executedAt, long elapsedMillis, @Nullable String repositoryMethod, String thread,
+              String sql, String sqlWithValues, @Nullable String error) {
+        this.executedAt = executedAt;
+        this.elapsedMillis = elapsedMillis;
+        this.repositoryMethod = repositoryMethod;
+        this.thread = thread;
+        this.sql = sql;
+        this.sqlWithValues = sqlWithValues;
+        this.error = error;
+    }
+
+    void setPlan(String plan) {
+        this.plan = plan;
+    }
+}
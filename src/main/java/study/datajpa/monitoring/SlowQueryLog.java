@@ -0,0 +1,184 @@
+package study.datajpa.monitoring;
+
+import com.p6spy.engine.common.PreparedStatementInformation;
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.WeakHashMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Keeps the last {@code jdbc.slow-query.capacity} statements slower than {@code jdbc.slow-query.threshold}
+ * in a ring buffer, with their bind values and the repository method that ran them. Read them through
+ * the {@code slowqueries} actuator endpoint, which is not exposed over HTTP unless configured to be.
+ * <p>
+ * Queries are explained in the background, so the EXPLAIN does not slow down the request. It runs on
+ * the batch pool, or without one on the application's data source and its connection limits, never
+ * on a connection online traffic is waiting for. The statement is prepared again with the recorded
+ * bind values, never with values inlined into the SQL. When the background queue is full, the plan is
+ * skipped. Bind values are recorded as they were sent, including personal data.
+ */
+@Slf4j
+@Component
+public class SlowQueryLog extends SimpleJdbcEventListener implements DisposableBean {
+
+    private static final int EXPLAIN_QUEUE = 16;
+
+    private final RepositoryMetrics repositoryMetrics;
+    private final ObjectProvider<DataSource> batchDataSource;
+    private final ObjectProvider<DataSource> dataSource;
+    private final long thresholdNanos;
+    private final boolean explain;
+
+    // bind values of open queries, kept until the statement is garbage collected
+    private final Map<StatementInformation, Map<Integer, Object>> parameters =
+            Collections.synchronizedMap(new WeakHashMap<>());
+    private final AtomicReferenceArray<SlowQuery> records;
+    private final AtomicLong sequence = new AtomicLong();
+    private final ThreadPoolExecutor explainer;
+
+    public SlowQueryLog(RepositoryMetrics repositoryMetrics,
+                        @Qualifier("batchDataSource") ObjectProvider<DataSource> batchDataSource,
+                        ObjectProvider<DataSource> dataSource,
+                        @Value("${jdbc.slow-query.threshold:200ms}") Duration threshold,
+                        @Value("${jdbc.slow-query.capacity:100}") int capacity,
+                        @Value("${jdbc.slow-query.explain:true}") boolean explain) {
+        this.repositoryMetrics = repositoryMetrics;
+        this.batchDataSource = batchDataSource;
+        this.dataSource = dataSource;
+        this.thresholdNanos = threshold.toNanos();
+        this.explain = explain;
+        if (capacity < 1) {
+            throw new IllegalArgumentException("jdbc.slow-query.capacity must be positive: " + capacity);
+        }
+        this.records = new AtomicReferenceArray<>(capacity);
+        this.explainer = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(EXPLAIN_QUEUE), runnable -> {
+                    Thread thread = new Thread(runnable, "slow-query-explain");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    @Override
+    public void onAfterPreparedStatementSet(PreparedStatementInformation statementInformation, int parameterIndex,
+                                            Object value, SQLException e) {
+        if (explain && e == null && isQuery(statementInformation.getSql())) {
+            parameters.computeIfAbsent(statementInformation, statement -> new HashMap<>()).put(parameterIndex, value);
+        }
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        if (timeElapsedNanos < thresholdNanos) {
+            return;
+        }
+        SlowQuery query = new SlowQuery(Instant.now(), TimeUnit.NANOSECONDS.toMillis(timeElapsedNanos),
+                repositoryMetrics.currentMethod(), Thread.currentThread().getName(),
+                statementInformation.getSql(), statementInformation.getSqlWithValues(),
+                e != null ? e.getMessage() : null);
+        records.set((int) (sequence.getAndIncrement() % records.length()), query);
+
+        if (explain && e == null && isQuery(query.getSql())) {
+            List<Object> values = values(parameters.get(statementInformation));
+            explainer.execute(() -> query.setPlan(explain(query.getSql(), values)));
+        }
+    }
+
+    /**
+     * Recorded statements, newest first.
+     */
+    public List<SlowQuery> records() {
+        long last = sequence.get();
+        List<SlowQuery> result = new ArrayList<>(records.length());
+        for (long i = last - 1; i >= 0 && i >= last - records.length(); i--) {
+            SlowQuery query = records.get((int) (i % records.length()));
+            if (query != null) {
+                result.add(query);
+            }
+        }
+        return result;
+    }
+
+    public void clear() {
+        for (int i = 0; i < records.length(); i++) {
+            records.set(i, null);
+        }
+    }
+
+    @Override
+    public void destroy() {
+        explainer.shutdownNow();
+    }
+
+    // statements that change data or schema are not explained, some databases would run them
+    private static boolean isQuery(String sql) {
+        String start = sql.stripLeading().toLowerCase(Locale.ROOT);
+        return start.startsWith("select") || start.startsWith("with");
+    }
+
+    // copied on the executing thread, JDBC parameter indexes start at 1
+    private static List<Object> values(Map<Integer, Object> bound) {
+        if (bound == null) {
+            return Collections.emptyList();
+        }
+        Object[] values = new Object[bound.keySet().stream().mapToInt(Integer::intValue).max().orElse(0)];
+        bound.forEach((index, value) -> values[index - 1] = value);
+        return Arrays.asList(values);
+    }
+
+    private String explain(String sql, List<Object> values) {
+        // looked up late, the application's data source is decorated with this listener
+        DataSource explainDataSource = batchDataSource.getIfAvailable(dataSource::getObject);
+        try (Connection connection = explainDataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("explain " + sql)) {
+            for (int i = 0; i < values.size(); i++) {
+                statement.setObject(i + 1, values.get(i));
+            }
+            return plan(statement);
+        } catch (SQLException | RuntimeException e) {
+            log.debug("Could not explain {}", sql, e);
+            return "EXPLAIN failed: " + e.getMessage();
+        }
+    }
+
+    private static String plan(PreparedStatement statement) throws SQLException {
+        try (ResultSet plan = statement.executeQuery()) {
+            int columns = plan.getMetaData().getColumnCount();
+            StringJoiner lines = new StringJoiner("\n");
+            while (plan.next()) {
+                StringJoiner line = new StringJoiner(" | ");
+                for (int i = 1; i <= columns; i++) {
+                    line.add(String.valueOf(plan.getString(i)));
+                }
+                lines.add(line.toString());
+            }
+            return lines.toString();
+        }
+    }
+}
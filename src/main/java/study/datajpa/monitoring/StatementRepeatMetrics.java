@@ -0,0 +1,83 @@
+package study.datajpa.monitoring;
+
+import com.p6spy.engine.common.PreparedStatementInformation;
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Counts prepared statement executions whose SQL ran on the same physical connection within the last
+ * {@code jdbc.statement-repeat.window} distinct statements ({@code jdbc.statement.repeat}, tagged
+ * {@code repeated}).
+ * <p>
+ * This is an estimate of how often a per-connection statement cache of that size could be hit, not a
+ * measured hit rate: neither Hikari nor H2 report their statement cache. The window is an LRU of SQL
+ * texts per physical connection, the way H2's {@code QUERY_CACHE_SIZE} and the caches of other drivers
+ * evict, so set it to the driver's cache size.
+ */
+@Component
+public class StatementRepeatMetrics extends SimpleJdbcEventListener {
+
+    private final int capacity;
+    private final Counter repeated;
+    private final Counter first;
+
+    // a physical connection is used by one thread at a time, so its LRU needs no locking
+    private final Map<Object, Map<String, Boolean>> windows = Collections.synchronizedMap(new WeakHashMap<>());
+
+    public StatementRepeatMetrics(MeterRegistry registry, @Value("${jdbc.statement-repeat.window:64}") int window) {
+        this.capacity = window;
+        this.repeated = Counter.builder("jdbc.statement.repeat").tag("repeated", "true")
+                .description("Executions whose SQL ran recently on the same connection, an estimate of statement cache hits")
+                .register(registry);
+        this.first = Counter.builder("jdbc.statement.repeat").tag("repeated", "false")
+                .description("Executions whose SQL did not run recently on the same connection")
+                .register(registry);
+    }
+
+    @Override
+    public void onBeforeAnyExecute(StatementInformation statementInformation) {
+        if (!(statementInformation instanceof PreparedStatementInformation)) {
+            return;
+        }
+        Map<String, Boolean> window = windows.computeIfAbsent(physical(statementInformation), connection -> lru());
+        if (window.put(statementInformation.getSql(), Boolean.TRUE) != null) {
+            repeated.increment();
+        } else {
+            first.increment();
+        }
+    }
+
+    private Map<String, Boolean> lru() {
+        return new LinkedHashMap<>(capacity, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    // unwraps the lazy connection proxy and the pool's proxy, both are created per checkout
+    private static Object physical(StatementInformation statementInformation) {
+        Connection connection = statementInformation.getConnectionInformation().getConnection();
+        try {
+            if (connection instanceof ConnectionProxy) {
+                connection = ((ConnectionProxy) connection).getTargetConnection();
+            }
+            return connection.unwrap(Connection.class);
+        } catch (SQLException e) {
+            return connection;
+        }
+    }
+}
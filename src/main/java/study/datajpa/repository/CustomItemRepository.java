@@ -0,0 +1,17 @@
+package study.datajpa.repository;
+
+import study.datajpa.datasource.BatchWorkload;
+import study.datajpa.entity.Item;
+
+import java.util.Collection;
+
+public interface CustomItemRepository {
+
+    /**
+     * Inserts the items that do not exist yet, without the select {@code save} issues for each assigned-id item.
+     * Writes go straight to JDBC, so already managed items are not refreshed. Returns the number of items written.
+     */
+    @BatchWorkload
+    int upsertAll(Collection<Item> items);
+
+}
@@ -1,11 +1,61 @@
 package study.datajpa.repository;
 
+import org.springframework.data.domain.Slice;
+import study.datajpa.datasource.BatchWorkload;
 import study.datajpa.entity.Member;
+import study.datajpa.repository.bulk.BulkUpdateProgress;
+import study.datajpa.repository.retry.RetryOnConflict;
 
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public interface CustomMemberRepository {
 
     List<Member> findMemberCustom();
 
+    /**
+     * Keyset paging ordered by {@code (username, id)}. Pass {@code null} for the first slice.
+     */
+    Slice<Member> findKeysetSlice(MemberCursor after, int size);
+
+    /**
+     * Persists the members in JDBC batches, clearing the persistence context after each batch.
+     * Members must not be used as managed entities afterwards. Returns the number of members saved.
+     */
+    @BatchWorkload
+    long saveAllBatched(Stream<Member> members);
+
+    /**
+     * Adds {@code delta} to the member's age under optimistic locking, retrying when a concurrent
+     * update wins. Returns the new age.
+     */
+    @RetryOnConflict(maxAttempts = 10)
+    int addAge(Long memberId, int delta);
+
+    /**
+     * Same as {@link #addAge} but holds a {@code PESSIMISTIC_WRITE} row lock, so concurrent writers wait.
+     */
+    int addAgeLocked(Long memberId, int delta);
+
+    /**
+     * Chunked {@code bulkAgePlus}: walks members by id, {@code chunkSize} at a time, each chunk in its
+     * own transaction. Pass the last reported {@link BulkUpdateProgress#getLastId()} to resume.
+     * Only members of the updated chunks are detached from the current persistence context.
+     */
+    @BatchWorkload
+    BulkUpdateProgress bulkAgePlus(int age, int chunkSize, Long resumeAfter, Consumer<BulkUpdateProgress> progress);
+
+    /**
+     * Ids of members whose username starts with {@code prefix}, ignoring case, ordered by username and id.
+     * Served from the in-memory {@link study.datajpa.repository.search.UsernameIndex}, without a query.
+     */
+    List<Long> searchIdsByUsernamePrefix(String prefix, int limit);
+
+    /**
+     * Ids of members whose username is within {@code maxEdits} typos of {@code username}, ignoring case,
+     * closest first. Served from the in-memory {@link study.datajpa.repository.search.UsernameIndex}.
+     */
+    List<Long> searchIdsByUsernameFuzzy(String username, int maxEdits, int limit);
+
 }
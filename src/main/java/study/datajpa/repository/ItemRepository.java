@@ -1,10 +1,10 @@
 package study.datajpa.repository;
 
-import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 import study.datajpa.entity.Item;
+import study.datajpa.repository.support.ExtendedRepository;
 
 @Repository
-public interface ItemRepository extends JpaRepository<Item, Long> {
+public interface ItemRepository extends ExtendedRepository<Item, String>, CustomItemRepository {
 
 }
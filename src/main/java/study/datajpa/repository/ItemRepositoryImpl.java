@@ -0,0 +1,48 @@
+package study.datajpa.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Item;
+
+import javax.persistence.EntityManager;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collection;
+
+@RequiredArgsConstructor
+public class ItemRepositoryImpl implements CustomItemRepository {
+
+    private static final int BATCH_SIZE = 50;
+
+    // created_datetime is only set on insert, like @CreatedDate
+    private static final String UPSERT_SQL = "merge into item t" +
+            " using (values (?, ?)) s(id, created_datetime) on t.id = s.id" +
+            " when not matched then insert (id, created_datetime) values (s.id, s.created_datetime)";
+
+    private final EntityManager em;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    @Transactional
+    public int upsertAll(Collection<Item> items) {
+        if (items.isEmpty()) {
+            return 0;
+        }
+
+        // pending entity changes must reach the database before the statements below
+        em.flush();
+
+        LocalDateTime now = LocalDateTime.now();
+        int[][] counts = jdbcTemplate.batchUpdate(UPSERT_SQL, items, BATCH_SIZE, (ps, item) -> {
+            ps.setString(1, item.getId());
+            ps.setObject(2, now);
+        });
+
+        return Arrays.stream(counts)
+                .flatMapToInt(Arrays::stream)
+                .map(count -> Math.max(count, 0))
+                .sum();
+    }
+
+}
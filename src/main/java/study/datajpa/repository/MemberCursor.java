@@ -0,0 +1,66 @@
+package study.datajpa.repository;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import org.springframework.data.domain.Slice;
+import study.datajpa.entity.Member;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Keyset position on {@code (username, member_id)}, usernames sorted nulls first.
+ * Clients only see the opaque {@link #encode() encoded} form.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+public class MemberCursor {
+
+    private static final char SEPARATOR = ':';
+
+    private final String username;
+    private final Long id;
+
+    public MemberCursor(String username, Long id) {
+        this.username = username;
+        this.id = id;
+    }
+
+    public static MemberCursor of(Member member) {
+        return new MemberCursor(member.getUsername(), member.getId());
+    }
+
+    /**
+     * Cursor pointing after the last element of the slice, or {@code null} when there is no next slice.
+     */
+    public static MemberCursor next(Slice<Member> slice) {
+        if (!slice.hasNext()) {
+            return null;
+        }
+        List<Member> content = slice.getContent();
+        return of(content.get(content.size() - 1));
+    }
+
+    public String encode() {
+        // a null username is encoded without separator, so it cannot be confused with the text "null"
+        String raw = username == null ? String.valueOf(id) : id + String.valueOf(SEPARATOR) + username;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static MemberCursor decode(String cursor) {
+        String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        int separator = raw.indexOf(SEPARATOR);
+        try {
+            if (separator < 0) {
+                return new MemberCursor(null, Long.valueOf(raw));
+            }
+            Long id = Long.valueOf(raw.substring(0, separator));
+            return new MemberCursor(raw.substring(separator + 1), id);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Malformed cursor: " + cursor, e);
+        }
+    }
+}
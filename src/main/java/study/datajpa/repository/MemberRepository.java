@@ -4,17 +4,25 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.*;
 import org.springframework.data.repository.query.Param;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import study.datajpa.dto.MemberDto;
 import study.datajpa.entity.Member;
+import study.datajpa.repository.count.CountMode;
+import study.datajpa.repository.count.CountStrategy;
+import study.datajpa.repository.support.ExtendedRepository;
+import study.datajpa.repository.support.ReadOnlyQuery;
 
 import javax.persistence.LockModeType;
 import javax.persistence.QueryHint;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 @Repository
-public interface MemberRepository extends JpaRepository<Member, Long>, CustomMemberRepository, JpaSpecificationExecutor<Member> {
+public interface MemberRepository extends ExtendedRepository<Member, Long>, CustomMemberRepository, JpaSpecificationExecutor<Member> {
 
     List<Member> findByUsernameAndAgeGreaterThan(String username, int age);
 
@@ -24,12 +32,51 @@ public interface MemberRepository extends JpaRepository<Member, Long>, CustomMem
     @Query("select m from Member m where m.username = :username and m.age = :age")
     List<Member> findUser(@Param("username") String username, @Param("age") int age);
 
+    @ReadOnlyQuery
     @Query("select m.username from Member m")
     List<String> findUsernameList();
 
+    @ReadOnlyQuery
     @Query("select new study.datajpa.dto.MemberDto(m.id, m.username, t.name) from Member m join m.team t")
     List<MemberDto> findMemberDto();
 
+    // DTOs are not managed, so nothing accumulates in the persistence context while streaming
+    @QueryHints(value = @QueryHint(name = "org.hibernate.fetchSize", value = "500"))
+    @Query("select new study.datajpa.dto.MemberDto(m.id, m.username, t.name) from Member m left join m.team t")
+    Stream<MemberDto> streamMemberDto();
+
+    // Async reads run in a read-only transaction of their own on the async query pool, so several can
+    // overlap. Entities come back detached, fetch what the caller needs in the query.
+    @Async
+    @Transactional(readOnly = true)
+    @EntityGraph(attributePaths = "team")
+    CompletableFuture<List<Member>> findAsyncByUsername(String username);
+
+    @Async
+    @Transactional(readOnly = true)
+    @Query("select new study.datajpa.dto.MemberDto(m.id, m.username, t.name) from Member m join m.team t")
+    CompletableFuture<List<MemberDto>> findMemberDtoAsync();
+
+    @Async
+    @Transactional(readOnly = true)
+    @Query("select count(m) from Member m")
+    CompletableFuture<Long> countAsync();
+
+    /**
+     * Members whose username starts with {@code prefix}, ignoring case, ordered by username and id.
+     * Ids come from the username index, the members are then loaded in one batch.
+     */
+    default List<Member> searchByUsernamePrefix(String prefix, int limit) {
+        return multiLoad(searchIdsByUsernamePrefix(prefix, limit));
+    }
+
+    /**
+     * Members whose username is within {@code maxEdits} typos of {@code username}, closest first.
+     */
+    default List<Member> searchByUsernameFuzzy(String username, int maxEdits, int limit) {
+        return multiLoad(searchIdsByUsernameFuzzy(username, maxEdits, limit));
+    }
+
     @Query(value = "select m from Member m where m.username in :names")
     List<Member> findByNames(@Param("names") List<String> names);
 
@@ -39,12 +86,24 @@ public interface MemberRepository extends JpaRepository<Member, Long>, CustomMem
 
     Optional<Member> findOptionalByUsername(String username);
 
+    @Override
+    @CountStrategy(value = CountMode.CACHED, ttl = 30)
+    Page<Member> findAll(Pageable pageable);
+
+    @CountStrategy(value = CountMode.CACHED, ttl = 30)
     @Query(value = "select m from Member m left join m.team t",
             countQuery = "select count(m.username) from Member m")
     Page<Member> findByAge(int age, Pageable pageable);
 
+    @ReadOnlyQuery
+    @CountStrategy(value = CountMode.CACHED, ttl = 30)
+    @Query(value = "select new study.datajpa.dto.MemberDto(m.id, m.username, t.name) from Member m left join m.team t",
+            countQuery = "select count(m) from Member m")
+    Page<MemberDto> findMemberDtoPage(Pageable pageable);
+
     @Modifying(clearAutomatically = true)
-    @Query("update Member m set m.age = m.age + 1 where m.age >= :age")
+    // versioned, so optimistic writers holding the old row fail instead of overwriting the bulk update
+    @Query("update versioned Member m set m.age = m.age + 1 where m.age >= :age")
     int bulkAgePlus(@Param("age") int age);
 
     @Query("select m from Member m left join fetch m.team t")
@@ -80,6 +139,7 @@ public interface MemberRepository extends JpaRepository<Member, Long>, CustomMem
     @Query(value = "select * from member where username = ?", nativeQuery = true)
     Member findByNativeQuery(String username);
 
+    @CountStrategy(CountMode.ESTIMATED)
     @Query(value = "select m.member_id as id, m.username as username, t.name as teamName from member m left join team t",
             countQuery = "select count(*) from member",
             nativeQuery = true)
@@ -1,15 +1,35 @@
 package study.datajpa.repository;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.EmptyResultDataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.transaction.annotation.Transactional;
 import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.bulk.BulkUpdateProgress;
+import study.datajpa.repository.bulk.ChunkedBulkUpdater;
+import study.datajpa.repository.search.UsernameIndex;
 
 import javax.persistence.EntityManager;
+import javax.persistence.LockModeType;
+import javax.persistence.TypedQuery;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @RequiredArgsConstructor
 public class MemberRepositoryImpl implements CustomMemberRepository {
 
+    // keep in line with hibernate.jdbc.batch_size and the id allocationSize
+    private static final int BATCH_SIZE = 50;
+
     private final EntityManager em;
+    private final ChunkedBulkUpdater bulkUpdater;
+    private final UsernameIndex usernameIndex;
 
     @Override
     public List<Member> findMemberCustom() {
@@ -17,4 +37,99 @@ public class MemberRepositoryImpl implements CustomMemberRepository {
                 .getResultList();
     }
 
+    @Override
+    public Slice<Member> findKeysetSlice(MemberCursor after, int size) {
+        // nulls are ordered explicitly, the predicates below depend on them coming first
+        TypedQuery<Member> query;
+        if (after == null) {
+            query = em.createQuery("select m from Member m left join fetch m.team" +
+                    " order by m.username asc nulls first, m.id asc", Member.class);
+        } else if (after.getUsername() == null) {
+            query = em.createQuery("select m from Member m left join fetch m.team" +
+                            " where m.username is not null or m.id > :id" +
+                            " order by m.username asc nulls first, m.id asc", Member.class)
+                    .setParameter("id", after.getId());
+        } else {
+            query = em.createQuery("select m from Member m left join fetch m.team" +
+                            " where m.username > :username or (m.username = :username and m.id > :id)" +
+                            " order by m.username asc nulls first, m.id asc", Member.class)
+                    .setParameter("username", after.getUsername())
+                    .setParameter("id", after.getId());
+        }
+
+        // one extra row tells us whether there is a next slice, without a count query
+        List<Member> content = query.setMaxResults(size + 1).getResultList();
+        boolean hasNext = content.size() > size;
+        if (hasNext) {
+            content = content.subList(0, size);
+        }
+        return new SliceImpl<>(content, PageRequest.of(0, size), hasNext);
+    }
+
+    @Override
+    @Transactional
+    public long saveAllBatched(Stream<Member> members) {
+        long count = 0;
+        Iterator<Member> iterator = members.iterator();
+        while (iterator.hasNext()) {
+            Member member = iterator.next();
+
+            // a team saved by an earlier batch is detached by now, cascading persist to it would fail
+            Team team = member.getTeam();
+            if (team != null && team.getId() != null && !em.contains(team)) {
+                member.setTeam(em.getReference(Team.class, team.getId()));
+            }
+
+            em.persist(member);
+            if (++count % BATCH_SIZE == 0) {
+                em.flush();
+                em.clear();
+            }
+        }
+        em.flush();
+        em.clear();
+        return count;
+    }
+
+    @Override
+    @Transactional
+    public int addAge(Long memberId, int delta) {
+        return addAge(find(memberId, LockModeType.NONE), delta);
+    }
+
+    @Override
+    @Transactional
+    public int addAgeLocked(Long memberId, int delta) {
+        return addAge(find(memberId, LockModeType.PESSIMISTIC_WRITE), delta);
+    }
+
+    @Override
+    public BulkUpdateProgress bulkAgePlus(int age, int chunkSize, Long resumeAfter, Consumer<BulkUpdateProgress> progress) {
+        return bulkUpdater.update(Member.class, "e.age = e.age + 1", "e.age >= :age", Collections.singletonMap("age", age),
+                chunkSize, resumeAfter, progress);
+    }
+
+    @Override
+    public List<Long> searchIdsByUsernamePrefix(String prefix, int limit) {
+        return usernameIndex.prefix(prefix, limit);
+    }
+
+    @Override
+    public List<Long> searchIdsByUsernameFuzzy(String username, int maxEdits, int limit) {
+        return usernameIndex.fuzzy(username, maxEdits, limit);
+    }
+
+    private Member find(Long memberId, LockModeType lockMode) {
+        Member member = em.find(Member.class, memberId, lockMode);
+        if (member == null) {
+            throw new EmptyResultDataAccessException("No member with id " + memberId, 1);
+        }
+        return member;
+    }
+
+    private static int addAge(Member member, int delta) {
+        member.setAge(member.getAge() + delta);
+        return member.getAge();
+    }
+
 }
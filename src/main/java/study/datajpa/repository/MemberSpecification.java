@@ -4,6 +4,7 @@ import org.springframework.data.jpa.domain.Specification;
 import org.springframework.util.StringUtils;
 import study.datajpa.entity.Member;
 import study.datajpa.entity.Team;
+import study.datajpa.repository.spec.CompilableSpecification;
 
 import javax.persistence.criteria.Join;
 import javax.persistence.criteria.JoinType;
@@ -11,19 +12,24 @@ import javax.persistence.criteria.JoinType;
 public class MemberSpecification {
 
     public static Specification<Member> teamName(final String teamName) {
-        return (root, query, builder) -> {
+        if (StringUtils.hasText(teamName)) {
+            return CompilableSpecification.of("teamName:none", jpql -> null, (root, query, builder) -> null);
+        }
 
-            if (StringUtils.hasText(teamName)) {
-                return null;
-            }
-
-            Join<Member, Team> t = root.join("team", JoinType.INNER);// 회원과 조인
-            return builder.equal(t.get("name"), teamName);
-        };
+        return CompilableSpecification.of("teamName",
+                jpql -> jpql.join("team", JoinType.INNER) + ".name = " + jpql.parameter(),
+                (root, query, builder) -> {
+                    Join<Member, Team> t = root.join("team", JoinType.INNER);// 회원과 조인
+                    return builder.equal(t.get("name"), teamName);
+                },
+                teamName);
     }
 
     public static Specification<Member> username(final String username) {
-        return (root, query, builder) ->
-                builder.equal(root.get("username"), username);
+        return CompilableSpecification.of("username",
+                jpql -> jpql.root() + ".username = " + jpql.parameter(),
+                (root, query, builder) ->
+                        builder.equal(root.get("username"), username),
+                username);
     }
 }
@@ -1,7 +1,24 @@
 package study.datajpa.repository;
 
-import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.transaction.annotation.Transactional;
 import study.datajpa.entity.Team;
+import study.datajpa.repository.support.ExtendedRepository;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+public interface TeamRepository extends ExtendedRepository<Team, Long> {
+
+    @Async
+    @Transactional(readOnly = true)
+    @Query("select t from Team t")
+    CompletableFuture<List<Team>> findAllAsync();
+
+    @Async
+    @Transactional(readOnly = true)
+    @Query("select count(t) from Team t")
+    CompletableFuture<Long> countAsync();
 
-public interface TeamRepository extends JpaRepository<Team, Long> {
 }
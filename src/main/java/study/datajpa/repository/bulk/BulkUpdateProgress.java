@@ -0,0 +1,33 @@
+package study.datajpa.repository.bulk;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * State of a chunked bulk update after a committed chunk. Everything up to and including
+ * {@link #getLastId()} is done, so passing it as {@code resumeAfter} continues an interrupted run.
+ */
+@Getter
+@ToString
+public class BulkUpdateProgress {
+
+    private final int chunks;
+    private final long updated;
+    private final Long lastId;
+    private final boolean done;
+
+    BulkUpdateProgress(int chunks, long updated, Long lastId, boolean done) {
+        this.chunks = chunks;
+        this.updated = updated;
+        this.lastId = lastId;
+        this.done = done;
+    }
+
+    BulkUpdateProgress next(long chunkUpdated, Long chunkLastId) {
+        return new BulkUpdateProgress(chunks + 1, updated + chunkUpdated, chunkLastId, false);
+    }
+
+    BulkUpdateProgress finished() {
+        return new BulkUpdateProgress(chunks, updated, lastId, true);
+    }
+}
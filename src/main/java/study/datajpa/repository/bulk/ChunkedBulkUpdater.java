@@ -0,0 +1,129 @@
+package study.datajpa.repository.bulk;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.lang.Nullable;
+import org.springframework.orm.jpa.EntityManagerFactoryUtils;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.repository.count.PageCounter;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Query;
+import javax.persistence.metamodel.EntityType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Runs a bulk JPQL update in id ranges of {@code chunkSize} rows, each in its own short transaction,
+ * so row locks are held for one chunk instead of the whole table.
+ * <p>
+ * Entities of the updated ranges are detached from the caller's persistence context (e.g. the
+ * open-in-view one) after each chunk, the rest stays managed. Detaching cascades along the entity's
+ * mappings (e.g. to a member's team), so pending changes of that context are flushed with every chunk
+ * first. Runs must start outside a transaction, since every chunk commits on its own. Only entities with
+ * numeric ids are supported.
+ */
+@Slf4j
+@Component
+public class ChunkedBulkUpdater {
+
+    private final EntityManager em;
+    private final EntityManagerFactory emf;
+    private final TransactionTemplate chunkTransaction;
+    private final PageCounter pageCounter;
+
+    public ChunkedBulkUpdater(EntityManager em, EntityManagerFactory emf,
+                              PlatformTransactionManager transactionManager, PageCounter pageCounter) {
+        this.em = em;
+        this.emf = emf;
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.pageCounter = pageCounter;
+    }
+
+    /**
+     * Runs {@code update <entity> e set <set> where <where>} chunk by chunk in id order.
+     *
+     * @param set         JPQL assignments on the alias {@code e}, e.g. {@code e.age = e.age + 1}
+     * @param where       JPQL condition on {@code e}, or {@code null} for every row
+     * @param resumeAfter {@link BulkUpdateProgress#getLastId()} of an interrupted run, or {@code null}
+     * @param progress    called after every committed chunk
+     */
+    public BulkUpdateProgress update(Class<?> domainType, String set, @Nullable String where, Map<String, ?> parameters,
+                                     int chunkSize, @Nullable Long resumeAfter, Consumer<BulkUpdateProgress> progress) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalTransactionStateException("Chunked bulk updates commit per chunk and must not run inside a transaction");
+        }
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("chunkSize must be positive: " + chunkSize);
+        }
+
+        EntityType<?> entity = emf.getMetamodel().entity(domainType);
+        String id = entity.getId(entity.getIdType().getJavaType()).getName();
+        String chunkIds = "select e." + id + " from " + entity.getName() + " e where e." + id + " > :after order by e." + id;
+        String update = "update versioned " + entity.getName() + " e set " + set +
+                " where e." + id + " > :after and e." + id + " <= :upTo" + (where != null ? " and (" + where + ")" : "");
+
+        BulkUpdateProgress current = new BulkUpdateProgress(0, 0, resumeAfter, false);
+        while (true) {
+            Long after = current.getLastId() != null ? current.getLastId() : Long.MIN_VALUE;
+            Long upTo = chunkTransaction.execute(status -> {
+                // keyset over the id index, the last id of the chunk is its upper bound
+                List<?> ids = em.createQuery(chunkIds)
+                        .setParameter("after", after)
+                        .setMaxResults(chunkSize)
+                        .getResultList();
+                return ids.isEmpty() ? null : ((Number) ids.get(ids.size() - 1)).longValue();
+            });
+            if (upTo == null) {
+                break;
+            }
+
+            Integer updated = chunkTransaction.execute(status -> {
+                // under open-in-view this is the caller's persistence context, whose changes detach() would drop
+                em.flush();
+                Query query = em.createQuery(update)
+                        .setParameter("after", after)
+                        .setParameter("upTo", upTo);
+                parameters.forEach(query::setParameter);
+                return query.executeUpdate();
+            });
+            pageCounter.invalidate(domainType);
+            detach(domainType, after, upTo);
+
+            current = current.next(updated, upTo);
+            log.debug("Bulk update of {}: {}", entity.getName(), current);
+            progress.accept(current);
+        }
+        return current.finished();
+    }
+
+    private void detach(Class<?> domainType, long after, long upTo) {
+        EntityManager callerEm = EntityManagerFactoryUtils.getTransactionalEntityManager(emf);
+        if (callerEm == null) {
+            return;
+        }
+        List<Object> stale = new ArrayList<>();
+        for (Map.Entry<Object, EntityEntry> entry : callerEm.unwrap(SessionImplementor.class)
+                .getPersistenceContextInternal()
+                .reentrantSafeEntityEntries()) {
+            Object entityId = entry.getValue().getId();
+            if (domainType.isInstance(entry.getKey()) && entityId instanceof Number) {
+                long value = ((Number) entityId).longValue();
+                if (value > after && value <= upTo) {
+                    stale.add(entry.getKey());
+                }
+            }
+        }
+        stale.forEach(callerEm::detach);
+    }
+}
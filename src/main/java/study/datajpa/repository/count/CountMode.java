@@ -0,0 +1,19 @@
+package study.datajpa.repository.count;
+
+public enum CountMode {
+
+    /**
+     * Run the count query on every request.
+     */
+    EXACT,
+
+    /**
+     * Run the count query once and keep the result until it expires or the entity is written.
+     */
+    CACHED,
+
+    /**
+     * Use the database row count estimate of the entity table. Only meaningful for unfiltered counts.
+     */
+    ESTIMATED
+}
@@ -0,0 +1,26 @@
+package study.datajpa.repository.count;
+
+import java.lang.annotation.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Selects how the total of a {@code Page} returning repository method is computed.
+ * Methods without this annotation always run their count query.
+ * <p>
+ * Query methods need a {@code @Query} without SpEL or LIKE wildcards around parameters,
+ * other methods fail at startup when a mode other than {@link CountMode#EXACT} is requested.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface CountStrategy {
+
+    CountMode value() default CountMode.EXACT;
+
+    /**
+     * How long a cached or estimated total is reused.
+     */
+    long ttl() default 60;
+
+    TimeUnit unit() default TimeUnit.SECONDS;
+}
@@ -0,0 +1,94 @@
+package study.datajpa.repository.count;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Computes page totals according to a {@link CountStrategy}.
+ * Cached totals are kept per entity type and dropped whenever that type is written.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PageCounter {
+
+    // H2 statistics; other databases need their own catalog query (e.g. pg_class.reltuples)
+    private static final String ESTIMATE_QUERY = "select row_count_estimate from information_schema.tables" +
+            " where table_schema = current_schema and upper(table_name) = upper(?)";
+
+    private final EntityManagerFactory emf;
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ConcurrentMap<Class<?>, Counts> counts = new ConcurrentHashMap<>();
+
+    public long count(Class<?> domainType, Object key, CountStrategy strategy, LongSupplier exactCount) {
+        if (strategy == null || strategy.value() == CountMode.EXACT) {
+            return exactCount.getAsLong();
+        }
+
+        Counts typeCounts = counts.computeIfAbsent(domainType, type -> new Counts());
+        long now = System.nanoTime();
+        CachedCount cached = typeCounts.entries.get(key);
+        if (cached != null && now - cached.expiresAt < 0) {
+            return cached.total;
+        }
+
+        long generation = typeCounts.generation.get();
+        long total = strategy.value() == CountMode.ESTIMATED ? estimate(domainType, exactCount) : exactCount.getAsLong();
+
+        // a write that happened while counting makes the total stale, so it is not cached
+        if (typeCounts.generation.get() == generation) {
+            typeCounts.entries.put(key, new CachedCount(total, now + strategy.unit().toNanos(strategy.ttl())));
+        }
+        return total;
+    }
+
+    public void invalidate(Class<?> domainType) {
+        Counts typeCounts = counts.get(domainType);
+        if (typeCounts != null) {
+            typeCounts.generation.incrementAndGet();
+            typeCounts.entries.clear();
+        }
+    }
+
+    private long estimate(Class<?> domainType, LongSupplier exactCount) {
+        String table = ((AbstractEntityPersister) emf.unwrap(SessionFactoryImplementor.class)
+                .getMetamodel()
+                .entityPersister(domainType))
+                .getTableName();
+        try {
+            List<Long> estimates = jdbcTemplate.queryForList(ESTIMATE_QUERY, Long.class, table);
+            if (estimates.size() == 1 && estimates.get(0) != null) {
+                return estimates.get(0);
+            }
+        } catch (DataAccessException e) {
+            log.debug("Row count estimate unavailable for {}, falling back to exact count", table, e);
+        }
+        return exactCount.getAsLong();
+    }
+
+    private static class Counts {
+
+        private final AtomicLong generation = new AtomicLong();
+        private final ConcurrentMap<Object, CachedCount> entries = new ConcurrentHashMap<>();
+    }
+
+    @RequiredArgsConstructor
+    private static class CachedCount {
+
+        private final long total;
+        private final long expiresAt;
+    }
+}
@@ -0,0 +1,189 @@
+package study.datajpa.repository.index;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.core.RepositoryInformation;
+import org.springframework.data.repository.support.Repositories;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.lang.reflect.Method;
+import java.sql.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Checks that the columns repository queries narrow on are indexed, so a new query method does not
+ * silently turn into a full table scan. Once the application is ready, every query method (derived,
+ * {@code @Query} and named JPQL queries) is analyzed and compared with the indexes the database
+ * reports. Specifications are checked the first time each shape is compiled.
+ * <p>
+ * {@code jpa.index-advisor.mode} is {@code report} (log a warning with a suggested index, the default),
+ * {@code create} (create the suggested indexes at startup) or {@code off}. Native queries and hand
+ * written repository implementations are not analyzed.
+ */
+@Slf4j
+@Component
+public class IndexAdvisor {
+
+    public enum Mode {
+        OFF, REPORT, CREATE
+    }
+
+    private final ApplicationContext applicationContext;
+    private final EntityManagerFactory emf;
+    private final DataSource dataSource;
+    private final Mode mode;
+    private final QueryColumnAnalyzer analyzer;
+
+    private final ConcurrentMap<String, List<List<String>>> indexes = new ConcurrentHashMap<>();
+    private final Set<String> checked = ConcurrentHashMap.newKeySet();
+
+    public IndexAdvisor(ApplicationContext applicationContext, EntityManagerFactory emf, DataSource dataSource,
+                        @Value("${jpa.index-advisor.mode:report}") Mode mode) {
+        this.applicationContext = applicationContext;
+        this.emf = emf;
+        this.dataSource = dataSource;
+        this.mode = mode;
+        this.analyzer = new QueryColumnAnalyzer(emf.unwrap(SessionFactoryImplementor.class));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void adviseQueryMethods() {
+        if (mode == Mode.OFF) {
+            return;
+        }
+        Map<IndexCandidate, Set<String>> usages = new LinkedHashMap<>();
+        int analyzed = 0;
+        int skipped = 0;
+        Repositories repositories = new Repositories(applicationContext);
+        for (Class<?> domainType : repositories) {
+            RepositoryInformation information = repositories.getRequiredRepositoryInformation(domainType);
+            for (Method method : information.getQueryMethods()) {
+                String source = information.getRepositoryInterface().getSimpleName() + "." + method.getName();
+                List<IndexCandidate> candidates = analyze(domainType, method);
+                if (candidates == null) {
+                    skipped++;
+                    continue;
+                }
+                analyzed++;
+                candidates.forEach(candidate -> usages.computeIfAbsent(candidate, c -> new TreeSet<>()).add(source));
+            }
+        }
+
+        long missing = usages.entrySet().stream()
+                .filter(usage -> advise(usage.getKey(), usage.getValue(), mode == Mode.CREATE))
+                .count();
+        log.info("Index advisor analyzed {} query methods, skipped {} native or unreadable ones, {} column sets without an index",
+                analyzed, skipped, missing);
+    }
+
+    /**
+     * Checks a query built at runtime, once per distinct JPQL text. Only reports, indexes are not
+     * created while serving requests.
+     */
+    public void check(String source, String jpql) {
+        if (mode == Mode.OFF || !checked.add(jpql)) {
+            return;
+        }
+        try {
+            analyzer.jpql(jpql).forEach(candidate -> advise(candidate, Collections.singleton(source), false));
+        } catch (RuntimeException e) {
+            log.debug("Could not analyze {}: {}", source, jpql, e);
+        }
+    }
+
+    /**
+     * Candidates of the method, {@code null} when it cannot be analyzed.
+     */
+    private List<IndexCandidate> analyze(Class<?> domainType, Method method) {
+        try {
+            Query query = AnnotatedElementUtils.findMergedAnnotation(method, Query.class);
+            if (query != null && query.nativeQuery()) {
+                return null;
+            }
+            if (query != null && StringUtils.hasText(query.value())) {
+                return analyzer.jpql(query.value());
+            }
+            String namedQuery = namedQuery(query != null && StringUtils.hasText(query.name()) ? query.name()
+                    : emf.getMetamodel().entity(domainType).getName() + "." + method.getName());
+            return namedQuery != null ? analyzer.jpql(namedQuery) : analyzer.derived(domainType, method.getName());
+        } catch (RuntimeException e) {
+            log.debug("Could not analyze {}", method, e);
+            return null;
+        }
+    }
+
+    private String namedQuery(String name) {
+        EntityManager em = emf.createEntityManager();
+        try {
+            return em.createNamedQuery(name).unwrap(org.hibernate.query.Query.class).getQueryString();
+        } catch (IllegalArgumentException e) {
+            return null;
+        } finally {
+            em.close();
+        }
+    }
+
+    /**
+     * Reports or creates a missing index, {@code true} if there was none the candidate can use.
+     */
+    private boolean advise(IndexCandidate candidate, Set<String> sources, boolean create) {
+        List<List<String>> existing = indexes.computeIfAbsent(candidate.getTable(), this::readIndexes);
+        if (existing.stream().anyMatch(candidate::isServedBy)) {
+            return false;
+        }
+        String statement = candidate.createStatement();
+        if (!create) {
+            log.warn("No index serves {}, used by {}. Suggested: {}", candidate, sources, statement);
+            return true;
+        }
+        try (Connection connection = dataSource.getConnection(); Statement ddl = connection.createStatement()) {
+            ddl.execute(statement);
+            indexes.remove(candidate.getTable());
+            log.info("Created index for {}, used by {}: {}", candidate, sources, statement);
+        } catch (SQLException e) {
+            log.warn("Could not create index for {}, used by {}: {}", candidate, sources, statement, e);
+        }
+        return true;
+    }
+
+    /**
+     * Column lists of the table's indexes, primary key included, as the JDBC driver reports them.
+     */
+    private List<List<String>> readIndexes(String table) {
+        Map<String, SortedMap<Short, String>> columnsByIndex = new LinkedHashMap<>();
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            String name = metaData.storesUpperCaseIdentifiers() ? table.toUpperCase(Locale.ROOT)
+                    : metaData.storesLowerCaseIdentifiers() ? table.toLowerCase(Locale.ROOT) : table;
+            try (ResultSet rows = metaData.getIndexInfo(connection.getCatalog(), connection.getSchema(), name, false, true)) {
+                while (rows.next()) {
+                    String index = rows.getString("INDEX_NAME");
+                    String column = rows.getString("COLUMN_NAME");
+                    // table statistics rows have neither
+                    if (index != null && column != null) {
+                        columnsByIndex.computeIfAbsent(index, i -> new TreeMap<>())
+                                .put(rows.getShort("ORDINAL_POSITION"), column.toLowerCase(Locale.ROOT));
+                    }
+                }
+            }
+        } catch (SQLException e) {
+            log.warn("Could not read the indexes of {}", table, e);
+        }
+
+        List<List<String>> indexColumns = new ArrayList<>();
+        columnsByIndex.values().forEach(columns -> indexColumns.add(new ArrayList<>(columns.values())));
+        return indexColumns;
+    }
+}
@@ -0,0 +1,80 @@
+package study.datajpa.repository.index;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.util.*;
+
+/**
+ * Columns of one table a query filters and sorts on: equality predicates, range predicates (including
+ * {@code like}) and {@code order by} columns. Column names are lower case.
+ */
+@Getter
+@EqualsAndHashCode
+class IndexCandidate {
+
+    private final String table;
+    private final Set<String> equalities;
+    private final Set<String> ranges;
+    private final List<String> sorts;
+
+    IndexCandidate(String table, Collection<String> equalities, Collection<String> ranges, List<String> sorts) {
+        this.table = table.toLowerCase(Locale.ROOT);
+        this.equalities = lowerCase(equalities);
+        this.ranges = lowerCase(ranges);
+        this.sorts = new ArrayList<>(lowerCase(sorts));
+    }
+
+    boolean isEmpty() {
+        return equalities.isEmpty() && ranges.isEmpty() && sorts.isEmpty();
+    }
+
+    /**
+     * Whether the database can seek into an index with these leading-to-trailing columns instead of
+     * scanning the table: its first column has to be one the query narrows on.
+     */
+    boolean isServedBy(List<String> indexColumns) {
+        String leading = indexColumns.get(0);
+        if (!equalities.isEmpty()) {
+            return equalities.contains(leading);
+        }
+        if (!ranges.isEmpty()) {
+            return ranges.contains(leading);
+        }
+        return sorts.get(0).equals(leading);
+    }
+
+    /**
+     * Equality columns first, then one range or, failing that, one sort column.
+     */
+    List<String> suggestedColumns() {
+        List<String> columns = new ArrayList<>(equalities);
+        if (!ranges.isEmpty()) {
+            columns.add(ranges.iterator().next());
+        } else if (!sorts.isEmpty() && !columns.contains(sorts.get(0))) {
+            columns.add(sorts.get(0));
+        }
+        return columns;
+    }
+
+    String createStatement() {
+        List<String> columns = suggestedColumns();
+        return "create index if not exists idx_" + table + "_" + String.join("_", columns) +
+                " on " + table + " (" + String.join(", ", columns) + ")";
+    }
+
+    @Override
+    public String toString() {
+        StringJoiner joiner = new StringJoiner(", ", table + "(", ")");
+        equalities.forEach(column -> joiner.add(column + " ="));
+        ranges.forEach(column -> joiner.add(column + " range"));
+        sorts.forEach(column -> joiner.add(column + " order"));
+        return joiner.toString();
+    }
+
+    private static Set<String> lowerCase(Collection<String> columns) {
+        Set<String> lower = new LinkedHashSet<>();
+        columns.forEach(column -> lower.add(column.toLowerCase(Locale.ROOT)));
+        return lower;
+    }
+}
@@ -0,0 +1,230 @@
+package study.datajpa.repository.index;
+
+import org.hibernate.HibernateException;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.hibernate.type.CollectionType;
+import org.hibernate.type.EntityType;
+import org.hibernate.type.Type;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.repository.query.parser.Part;
+import org.springframework.data.repository.query.parser.PartTree;
+
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Finds the columns a query narrows and sorts on, per table. Derived queries are read from their
+ * {@link PartTree}, with one candidate per {@code Or} branch. JPQL is read approximately: predicates of
+ * the form {@code alias.path <operator>} in the {@code where} clause and {@code alias.path} items of the
+ * {@code order by} clause count, and {@code or} is not told apart from {@code and}.
+ */
+class QueryColumnAnalyzer {
+
+    private static final Set<String> KEYWORDS = Set.of("where", "join", "left", "right", "inner", "outer",
+            "fetch", "order", "group", "set", "on", "with");
+
+    private static final Pattern ROOT = Pattern.compile(
+            "\\b(?:from|update(?:\\s+versioned)?)\\s+([\\w.]+)(?:\\s+as)?\\s+(\\w+)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern JOIN = Pattern.compile(
+            "\\bjoin\\s+(?:fetch\\s+)?(\\w+)\\.(\\w+)(?:\\s+as)?\\s+(\\w+)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern PREDICATE = Pattern.compile(
+            "\\b(\\w+)\\.([\\w.]+)\\s*(<>|!=|>=|<=|=|<|>|not\\s+in\\b|not\\s+like\\b|not\\s+between\\b|in\\b|between\\b|like\\b|is\\b)",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern SORT_ITEM = Pattern.compile("\\b(\\w+)\\.([\\w.]+)");
+    private static final Pattern WHERE = Pattern.compile("\\bwhere\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern END_OF_WHERE = Pattern.compile("\\b(?:group|order)\\s+by\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern ORDER_BY = Pattern.compile("\\border\\s+by\\b", Pattern.CASE_INSENSITIVE);
+
+    private final SessionFactoryImplementor factory;
+
+    QueryColumnAnalyzer(SessionFactoryImplementor factory) {
+        this.factory = factory;
+    }
+
+    List<IndexCandidate> derived(Class<?> domainType, String methodName) {
+        PartTree tree = new PartTree(methodName, domainType);
+        List<String> sorts = new ArrayList<>();
+        for (Sort.Order order : tree.getSort()) {
+            sorts.add(order.getProperty());
+        }
+
+        List<IndexCandidate> candidates = new ArrayList<>();
+        for (PartTree.OrPart or : tree) {
+            Columns columns = new Columns();
+            for (Part part : or) {
+                Kind kind = kind(part.getType());
+                if (kind != null) {
+                    columns.add(column(domainType.getName(), part.getProperty().toDotPath()), kind);
+                }
+            }
+            sorts.forEach(sort -> columns.add(column(domainType.getName(), sort), Kind.SORT));
+            candidates.addAll(columns.candidates());
+        }
+        if (candidates.isEmpty() && !sorts.isEmpty()) {
+            Columns columns = new Columns();
+            sorts.forEach(sort -> columns.add(column(domainType.getName(), sort), Kind.SORT));
+            candidates.addAll(columns.candidates());
+        }
+        return candidates;
+    }
+
+    List<IndexCandidate> jpql(String jpql) {
+        Map<String, String[]> aliases = new HashMap<>();
+        Matcher root = ROOT.matcher(jpql);
+        while (root.find()) {
+            if (!KEYWORDS.contains(root.group(2).toLowerCase(Locale.ROOT))) {
+                aliases.put(root.group(2), new String[]{factory.getMetamodel().getImportedClassName(root.group(1)), ""});
+            }
+        }
+        Matcher join = JOIN.matcher(jpql);
+        while (join.find()) {
+            String[] owner = aliases.get(join.group(1));
+            if (owner != null && !KEYWORDS.contains(join.group(3).toLowerCase(Locale.ROOT))) {
+                aliases.put(join.group(3), new String[]{owner[0], owner[1] + join.group(2) + "."});
+            }
+        }
+
+        Columns columns = new Columns();
+        Matcher whereStart = WHERE.matcher(jpql);
+        if (whereStart.find()) {
+            Matcher whereEnd = END_OF_WHERE.matcher(jpql);
+            String where = jpql.substring(whereStart.end(), whereEnd.find(whereStart.end()) ? whereEnd.start() : jpql.length());
+            Matcher predicate = PREDICATE.matcher(where);
+            while (predicate.find()) {
+                String operator = predicate.group(3).toLowerCase(Locale.ROOT).replaceAll("\\s+", " ");
+                Kind kind = operator.startsWith("not") || operator.equals("<>") || operator.equals("!=") ? null
+                        : operator.equals("=") || operator.equals("in") || operator.equals("is") ? Kind.EQUALITY
+                        : Kind.RANGE;
+                columns.add(resolve(aliases, predicate.group(1), predicate.group(2)), kind);
+            }
+        }
+        Matcher orderBy = ORDER_BY.matcher(jpql);
+        if (orderBy.find()) {
+            Matcher item = SORT_ITEM.matcher(jpql.substring(orderBy.end()));
+            while (item.find()) {
+                columns.add(resolve(aliases, item.group(1), item.group(2)), Kind.SORT);
+            }
+        }
+        return columns.candidates();
+    }
+
+    private Column resolve(Map<String, String[]> aliases, String alias, String path) {
+        String[] target = aliases.get(alias);
+        return target == null ? null : column(target[0], target[1] + path);
+    }
+
+    /**
+     * Table and column of an attribute path, following to-one and collection associations. {@code null}
+     * for anything not stored in a single column, e.g. embeddables or the inverse side of an association.
+     */
+    private Column column(String entityName, String path) {
+        try {
+            AbstractEntityPersister persister = persister(entityName);
+            String[] segments = path.split("\\.");
+            for (int i = 0; i < segments.length; i++) {
+                Type type = persister.getPropertyType(segments[i]);
+                boolean last = i == segments.length - 1;
+                if (type.isCollectionType()) {
+                    Type element = ((CollectionType) type).getElementType(factory);
+                    if (last || !element.isEntityType()) {
+                        return null;
+                    }
+                    persister = persister(((EntityType) element).getAssociatedEntityName());
+                } else if (type.isEntityType() && !last) {
+                    AbstractEntityPersister target = persister(((EntityType) type).getAssociatedEntityName());
+                    // team.id is the foreign key column, no join needed
+                    if (i + 1 == segments.length - 1 && segments[i + 1].equals(target.getIdentifierPropertyName())) {
+                        return single(persister, segments[i]);
+                    }
+                    persister = target;
+                } else {
+                    return single(persister, segments[i]);
+                }
+            }
+            return null;
+        } catch (HibernateException | ClassCastException e) {
+            return null;
+        }
+    }
+
+    private AbstractEntityPersister persister(String entityName) {
+        return (AbstractEntityPersister) factory.getMetamodel().entityPersister(entityName);
+    }
+
+    private static Column single(AbstractEntityPersister persister, String property) {
+        String[] columns = persister.getPropertyColumnNames(property);
+        return columns.length == 1 ? new Column(persister.getTableName(), columns[0]) : null;
+    }
+
+    private static Kind kind(Part.Type type) {
+        switch (type) {
+            case SIMPLE_PROPERTY:
+            case IN:
+            case IS_NULL:
+            case TRUE:
+            case FALSE:
+                return Kind.EQUALITY;
+            case BETWEEN:
+            case LESS_THAN:
+            case LESS_THAN_EQUAL:
+            case GREATER_THAN:
+            case GREATER_THAN_EQUAL:
+            case BEFORE:
+            case AFTER:
+            case STARTING_WITH:
+            case LIKE:
+                return Kind.RANGE;
+            default:
+                // negations, contains, ends with, regex and case-insensitive matches cannot seek
+                return null;
+        }
+    }
+
+    private enum Kind {
+        EQUALITY, RANGE, SORT
+    }
+
+    private static class Column {
+
+        private final String table;
+        private final String name;
+
+        private Column(String table, String name) {
+            this.table = table;
+            this.name = name;
+        }
+    }
+
+    /**
+     * Columns of one query, grouped into a candidate per table.
+     */
+    private static class Columns {
+
+        private final Map<String, Map<Kind, List<String>>> tables = new LinkedHashMap<>();
+
+        void add(Column column, Kind kind) {
+            if (column == null || kind == null) {
+                return;
+            }
+            tables.computeIfAbsent(column.table, table -> new EnumMap<>(Kind.class))
+                    .computeIfAbsent(kind, k -> new ArrayList<>())
+                    .add(column.name);
+        }
+
+        List<IndexCandidate> candidates() {
+            List<IndexCandidate> candidates = new ArrayList<>();
+            tables.forEach((table, columns) -> {
+                IndexCandidate candidate = new IndexCandidate(table,
+                        columns.getOrDefault(Kind.EQUALITY, Collections.emptyList()),
+                        columns.getOrDefault(Kind.RANGE, Collections.emptyList()),
+                        columns.getOrDefault(Kind.SORT, Collections.emptyList()));
+                if (!candidate.isEmpty()) {
+                    candidates.add(candidate);
+                }
+            });
+            return candidates;
+        }
+    }
+}
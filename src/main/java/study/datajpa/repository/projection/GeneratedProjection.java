@@ -0,0 +1,27 @@
+package study.datajpa.repository.projection;
+
+/**
+ * Base class of the projection classes generated by {@link GeneratedProjections}.
+ * Each generated accessor method calls {@link #get(int)} with its own index.
+ */
+public abstract class GeneratedProjection {
+
+    private final Object source;
+    private final ProjectionAccessor[] accessors;
+    private final GeneratedProjectionFactory factory;
+
+    public GeneratedProjection(Object source, ProjectionAccessor[] accessors, GeneratedProjectionFactory factory) {
+        this.source = source;
+        this.accessors = accessors;
+        this.factory = factory;
+    }
+
+    protected final Object get(int index) {
+        return accessors[index].get(source, factory);
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getInterfaces()[0].getSimpleName() + "[" + source + "]";
+    }
+}
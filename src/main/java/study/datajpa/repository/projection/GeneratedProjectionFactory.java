@@ -0,0 +1,44 @@
+package study.datajpa.repository.projection;
+
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.context.expression.BeanFactoryResolver;
+import org.springframework.context.expression.MapAccessor;
+import org.springframework.data.projection.SpelAwareProxyProjectionFactory;
+import org.springframework.expression.EvaluationContext;
+import org.springframework.expression.spel.support.StandardEvaluationContext;
+import org.springframework.lang.Nullable;
+
+/**
+ * Creates interface projections from classes generated by {@link GeneratedProjections} and falls back
+ * to Spring Data's proxies for projections those cannot represent.
+ */
+public class GeneratedProjectionFactory extends SpelAwareProxyProjectionFactory {
+
+    private final GeneratedProjections generatedProjections;
+    private final StandardEvaluationContext evaluationContext = new StandardEvaluationContext();
+
+    public GeneratedProjectionFactory(GeneratedProjections generatedProjections, ClassLoader classLoader,
+                                      @Nullable BeanFactory beanFactory) {
+        this.generatedProjections = generatedProjections;
+        setBeanClassLoader(classLoader);
+        evaluationContext.addPropertyAccessor(new MapAccessor());
+        if (beanFactory != null) {
+            setBeanFactory(beanFactory);
+            evaluationContext.setBeanResolver(new BeanFactoryResolver(beanFactory));
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T createProjection(Class<T> projectionType, Object source) {
+        if (projectionType.isInstance(source)) {
+            return (T) source;
+        }
+        T projection = generatedProjections.create(projectionType, source, this);
+        return projection != null ? projection : super.createProjection(projectionType, source);
+    }
+
+    EvaluationContext getEvaluationContext() {
+        return evaluationContext;
+    }
+}
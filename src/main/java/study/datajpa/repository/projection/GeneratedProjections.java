@@ -0,0 +1,270 @@
+package study.datajpa.repository.projection;
+
+import lombok.extern.slf4j.Slf4j;
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.dynamic.DynamicType;
+import net.bytebuddy.dynamic.loading.ClassLoadingStrategy;
+import net.bytebuddy.dynamic.scaffold.subclass.ConstructorStrategy;
+import net.bytebuddy.implementation.MethodCall;
+import net.bytebuddy.implementation.bytecode.assign.Assigner;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.convert.ConversionService;
+import org.springframework.core.convert.support.DefaultConversionService;
+import org.springframework.expression.Expression;
+import org.springframework.expression.ParserContext;
+import org.springframework.expression.spel.SpelCompilerMode;
+import org.springframework.expression.spel.SpelParserConfiguration;
+import org.springframework.expression.spel.standard.SpelExpressionParser;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.*;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+
+import static net.bytebuddy.matcher.ElementMatchers.named;
+import static net.bytebuddy.matcher.ElementMatchers.takesArguments;
+
+/**
+ * Generates one class per projection interface whose accessors call precompiled getters
+ * or compiled {@code @Value} expressions, instead of going through a dynamic proxy per row.
+ * <p>
+ * Interfaces with accessors taking arguments or returning collections, and sources missing a
+ * projected property, are left to the proxies ({@link #create} returns {@code null}).
+ */
+@Slf4j
+@Component
+public class GeneratedProjections {
+
+    private static final Method GET = ReflectionUtils.findMethod(GeneratedProjection.class, "get", int.class);
+    private static final ConversionService CONVERSION_SERVICE = DefaultConversionService.getSharedInstance();
+
+    private final SpelExpressionParser parser = new SpelExpressionParser(
+            new SpelParserConfiguration(SpelCompilerMode.MIXED, GeneratedProjections.class.getClassLoader()));
+
+    private final ConcurrentMap<Class<?>, Optional<ProjectionType>> types = new ConcurrentHashMap<>();
+    private final ConcurrentMap<AccessorKey, Optional<ProjectionAccessor[]>> accessors = new ConcurrentHashMap<>();
+
+    /**
+     * Generates the class for the projection and its nested projections up front.
+     */
+    public void prepare(Class<?> projectionType) {
+        projectionType(projectionType).ifPresent(type -> {
+            for (Method method : type.methods) {
+                if (isProjection(method.getReturnType())) {
+                    prepare(method.getReturnType());
+                }
+            }
+        });
+    }
+
+    @Nullable
+    @SuppressWarnings("unchecked")
+    public <T> T create(Class<T> projectionType, Object source, GeneratedProjectionFactory factory) {
+        Optional<ProjectionType> type = projectionType(projectionType);
+        if (type.isEmpty()) {
+            return null;
+        }
+
+        Class<?> sourceType = source instanceof Map ? Map.class : source.getClass();
+        Optional<ProjectionAccessor[]> sourceAccessors = accessors.computeIfAbsent(new AccessorKey(projectionType, sourceType),
+                key -> accessors(type.get(), sourceType));
+        if (sourceAccessors.isEmpty()) {
+            return null;
+        }
+
+        try {
+            return (T) type.get().constructor.newInstance(source, sourceAccessors.get(), factory);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot instantiate projection " + projectionType.getName(), e);
+        }
+    }
+
+    private Optional<ProjectionType> projectionType(Class<?> projectionType) {
+        Optional<ProjectionType> type = types.get(projectionType);
+        if (type == null) {
+            type = types.computeIfAbsent(projectionType, this::generate);
+        }
+        return type;
+    }
+
+    private Optional<ProjectionType> generate(Class<?> projectionType) {
+        if (!projectionType.isInterface()) {
+            return Optional.empty();
+        }
+
+        List<Method> methods = new ArrayList<>();
+        for (Method method : projectionType.getMethods()) {
+            if (!Modifier.isAbstract(method.getModifiers())) {
+                continue;
+            }
+            if (method.getParameterCount() > 0 || isCollectionLike(method.getReturnType())) {
+                log.debug("{} is projected through a proxy, {} is not a plain accessor", projectionType.getName(), method);
+                return Optional.empty();
+            }
+            methods.add(method);
+        }
+
+        DynamicType.Builder<GeneratedProjection> builder = new ByteBuddy()
+                .subclass(GeneratedProjection.class, ConstructorStrategy.Default.IMITATE_SUPER_CLASS_PUBLIC)
+                .implement(projectionType);
+        for (int i = 0; i < methods.size(); i++) {
+            builder = builder.method(named(methods.get(i).getName()).and(takesArguments(0)))
+                    .intercept(MethodCall.invoke(GET).with(i).withAssigner(Assigner.DEFAULT, Assigner.Typing.DYNAMIC));
+        }
+
+        // a child class loader of the interface's loader sees both the interface and the base class
+        Class<? extends GeneratedProjection> generated = builder.make()
+                .load(projectionType.getClassLoader(), ClassLoadingStrategy.Default.WRAPPER)
+                .getLoaded();
+        try {
+            Constructor<? extends GeneratedProjection> constructor = generated.getConstructor(
+                    Object.class, ProjectionAccessor[].class, GeneratedProjectionFactory.class);
+            return Optional.of(new ProjectionType(constructor, methods));
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException("Generated projection " + generated.getName() + " has no constructor", e);
+        }
+    }
+
+    private Optional<ProjectionAccessor[]> accessors(ProjectionType type, Class<?> sourceType) {
+        ProjectionAccessor[] result = new ProjectionAccessor[type.methods.size()];
+        for (int i = 0; i < result.length; i++) {
+            Method method = type.methods.get(i);
+            ProjectionAccessor accessor = valueAccessor(method, sourceType);
+            if (accessor == null) {
+                log.debug("{} is projected through a proxy for {}, {} has no source property",
+                        method.getDeclaringClass().getName(), sourceType.getName(), method.getName());
+                return Optional.empty();
+            }
+            result[i] = adapt(accessor, method.getReturnType());
+        }
+        return Optional.of(result);
+    }
+
+    @Nullable
+    private ProjectionAccessor valueAccessor(Method method, Class<?> sourceType) {
+        Value value = method.getAnnotation(Value.class);
+        if (value != null) {
+            Expression expression = parser.parseExpression(value.value(), ParserContext.TEMPLATE_EXPRESSION);
+            return (source, factory) -> expression.getValue(factory.getEvaluationContext(), new ExpressionRoot(source));
+        }
+
+        PropertyDescriptor property = BeanUtils.findPropertyForMethod(method);
+        String name = property != null ? property.getName() : method.getName();
+        if (sourceType == Map.class) {
+            return (source, factory) -> ((Map<?, ?>) source).get(name);
+        }
+
+        PropertyDescriptor sourceProperty = BeanUtils.getPropertyDescriptor(sourceType, name);
+        if (sourceProperty == null || sourceProperty.getReadMethod() == null) {
+            return null;
+        }
+        Function<Object, Object> getter = getter(sourceProperty.getReadMethod());
+        return (source, factory) -> getter.apply(source);
+    }
+
+    private static ProjectionAccessor adapt(ProjectionAccessor accessor, Class<?> returnType) {
+        if (isProjection(returnType)) {
+            return (source, factory) -> {
+                Object value = accessor.get(source, factory);
+                return value == null ? null : factory.createProjection(returnType, value);
+            };
+        }
+        Class<?> type = ClassUtils.resolvePrimitiveIfNecessary(returnType);
+        return (source, factory) -> {
+            Object value = accessor.get(source, factory);
+            return value == null || type.isInstance(value) ? value : CONVERSION_SERVICE.convert(value, type);
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Function<Object, Object> getter(Method readMethod) {
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.lookup();
+            MethodHandle handle = lookup.unreflect(readMethod);
+            CallSite site = LambdaMetafactory.metafactory(lookup, "apply",
+                    MethodType.methodType(Function.class),
+                    MethodType.methodType(Object.class, Object.class),
+                    handle,
+                    handle.type().wrap());
+            return (Function<Object, Object>) site.getTarget().invokeExact();
+        } catch (Throwable e) {
+            // e.g. a getter declared by a class this package cannot access
+            ReflectionUtils.makeAccessible(readMethod);
+            return source -> ReflectionUtils.invokeMethod(readMethod, source);
+        }
+    }
+
+    private static boolean isProjection(Class<?> type) {
+        return type.isInterface() && !type.getName().startsWith("java.") && !isCollectionLike(type);
+    }
+
+    private static boolean isCollectionLike(Class<?> type) {
+        return type.isArray() || Collection.class.isAssignableFrom(type) || Map.class.isAssignableFrom(type)
+                || Optional.class.isAssignableFrom(type);
+    }
+
+    /**
+     * Root object of {@code @Value} expressions, matching what Spring Data's proxies expose as {@code target}.
+     */
+    public static class ExpressionRoot {
+
+        private final Object target;
+
+        ExpressionRoot(Object target) {
+            this.target = target;
+        }
+
+        public Object getTarget() {
+            return target;
+        }
+    }
+
+    private static class ProjectionType {
+
+        private final Constructor<? extends GeneratedProjection> constructor;
+        private final List<Method> methods;
+
+        private ProjectionType(Constructor<? extends GeneratedProjection> constructor, List<Method> methods) {
+            this.constructor = constructor;
+            this.methods = methods;
+        }
+    }
+
+    private static class AccessorKey {
+
+        private final Class<?> projectionType;
+        private final Class<?> sourceType;
+
+        private AccessorKey(Class<?> projectionType, Class<?> sourceType) {
+            this.projectionType = projectionType;
+            this.sourceType = sourceType;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof AccessorKey)) {
+                return false;
+            }
+            AccessorKey that = (AccessorKey) o;
+            return projectionType == that.projectionType && sourceType == that.sourceType;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(projectionType, sourceType);
+        }
+    }
+}
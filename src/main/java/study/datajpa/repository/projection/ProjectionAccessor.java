@@ -0,0 +1,8 @@
+package study.datajpa.repository.projection;
+
+@FunctionalInterface
+public interface ProjectionAccessor {
+
+    Object get(Object source, GeneratedProjectionFactory factory);
+
+}
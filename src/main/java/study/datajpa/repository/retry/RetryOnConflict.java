@@ -0,0 +1,35 @@
+package study.datajpa.repository.retry;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.lang.annotation.*;
+
+/**
+ * Runs the method again when it fails on a concurrent update, with an exponentially growing,
+ * jittered pause between attempts. Each attempt must run in its own transaction, so the method
+ * is only retried when called outside one; inside a transaction the failure goes to the caller.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface RetryOnConflict {
+
+    /**
+     * Attempts including the first call.
+     */
+    int maxAttempts() default 3;
+
+    /**
+     * Pause after the first failed attempt, in milliseconds.
+     */
+    long delay() default 10;
+
+    double multiplier() default 2.0;
+
+    /**
+     * Upper bound of the pause between attempts, in milliseconds.
+     */
+    long maxDelay() default 200;
+
+    Class<? extends Throwable>[] retryFor() default OptimisticLockingFailureException.class;
+}
@@ -0,0 +1,89 @@
+package study.datajpa.repository.retry;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.ProxyMethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Retries {@link RetryOnConflict} methods and counts every retry in {@code repository.retries}.
+ */
+@Slf4j
+class RetryOnConflictInterceptor implements MethodInterceptor {
+
+    // only the outermost retried call retries, nested ones would multiply the attempts
+    private static final ThreadLocal<Boolean> RETRYING = new ThreadLocal<>();
+
+    private final ObjectProvider<MeterRegistry> registry;
+
+    RetryOnConflictInterceptor(ObjectProvider<MeterRegistry> registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        RetryOnConflict retry = AnnotatedElementUtils.findMergedAnnotation(invocation.getMethod(), RetryOnConflict.class);
+        if (retry == null || RETRYING.get() != null || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return invocation.proceed();
+        }
+
+        RETRYING.set(Boolean.TRUE);
+        try {
+            for (int attempt = 1; ; attempt++) {
+                try {
+                    return ((ProxyMethodInvocation) invocation).invocableClone().proceed();
+                } catch (Throwable e) {
+                    if (attempt >= retry.maxAttempts() || !isRetryable(e, retry)) {
+                        throw e;
+                    }
+                    log.debug("Attempt {} of {} failed, retrying: {}", attempt, invocation.getMethod(), e.toString());
+                    countRetry(invocation.getMethod());
+                    if (!pause(retry, attempt)) {
+                        throw e;
+                    }
+                }
+            }
+        } finally {
+            RETRYING.remove();
+        }
+    }
+
+    private void countRetry(Method method) {
+        registry.ifAvailable(meters -> meters.counter("repository.retries",
+                "class", method.getDeclaringClass().getSimpleName(), "method", method.getName()).increment());
+    }
+
+    private static boolean isRetryable(Throwable e, RetryOnConflict retry) {
+        for (Class<? extends Throwable> type : retry.retryFor()) {
+            if (type.isInstance(e)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Sleeps between half and all of the backoff, so writers that collided do not collide again.
+     * Returns {@code false} when interrupted.
+     */
+    private static boolean pause(RetryOnConflict retry, int attempt) {
+        long backoff = Math.min(retry.maxDelay(), (long) (retry.delay() * Math.pow(retry.multiplier(), attempt - 1)));
+        if (backoff <= 0) {
+            return true;
+        }
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(backoff / 2, backoff + 1));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
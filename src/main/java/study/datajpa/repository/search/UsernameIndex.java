@@ -0,0 +1,200 @@
+package study.datajpa.repository.search;
+
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * In-memory index of member usernames, for prefix and typo tolerant lookups that a B-tree cannot
+ * answer without scanning. Usernames are matched case-insensitively.
+ * <p>
+ * Prefixes are a range of a sorted map, so a lookup costs a seek plus the matches returned. Fuzzy
+ * lookups take as candidates only the usernames containing one of the input's rarest trigrams, as
+ * many as a match within the allowed edit distance cannot all lose, then check the distance. Trigrams
+ * every username shares, like those of a common prefix, are not probed. Writes are serialized, reads take no lock and may miss a write that
+ * is in progress.
+ */
+@Component
+public class UsernameIndex {
+
+    private static final int GRAM = 3;
+
+    private final ConcurrentHashMap<Long, String> usernames = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListMap<String, Set<Long>> idsByUsername = new ConcurrentSkipListMap<>();
+    private final ConcurrentHashMap<String, Set<String>> usernamesByGram = new ConcurrentHashMap<>();
+
+    /**
+     * Indexes the member's username, replacing the one indexed before. A {@code null} username removes it.
+     */
+    public synchronized void put(Long id, String username) {
+        String key = normalize(username);
+        String previous = key != null ? usernames.put(id, key) : usernames.remove(id);
+        if (Objects.equals(previous, key)) {
+            return;
+        }
+        if (previous != null) {
+            unlink(previous, id);
+        }
+        if (key != null) {
+            link(key, id);
+        }
+    }
+
+    public synchronized void remove(Long id) {
+        String previous = usernames.remove(id);
+        if (previous != null) {
+            unlink(previous, id);
+        }
+    }
+
+    public int size() {
+        return usernames.size();
+    }
+
+    /**
+     * Ids of members whose username starts with {@code prefix}, ordered by username and id.
+     */
+    public List<Long> prefix(String prefix, int limit) {
+        String key = normalize(prefix);
+        List<Long> result = new ArrayList<>(Math.min(limit, 64));
+        if (key == null) {
+            return result;
+        }
+        for (Map.Entry<String, Set<Long>> entry : idsByUsername.tailMap(key, true).entrySet()) {
+            if (!entry.getKey().startsWith(key) || !addAll(result, entry.getValue(), limit)) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Ids of members whose username is at most {@code maxEdits} insertions, deletions or substitutions
+     * away from {@code username}, closest first. Usernames sharing no trigram with the input are not
+     * considered, which only matters for inputs of a few characters.
+     */
+    public List<Long> fuzzy(String username, int maxEdits, int limit) {
+        String key = normalize(username);
+        List<Long> result = new ArrayList<>(Math.min(limit, 64));
+        if (key == null) {
+            return result;
+        }
+
+        // every edit changes at most GRAM of the input's trigrams, so a match keeps minShared of them and
+        // contains one of any grams - minShared + 1 of them: the rarest are enough to find every match
+        List<Set<String>> postings = new ArrayList<>();
+        for (String gram : grams(key)) {
+            postings.add(usernamesByGram.getOrDefault(gram, Collections.emptySet()));
+        }
+        int minShared = Math.max(1, postings.size() - GRAM * maxEdits);
+        postings.sort(Comparator.comparingInt(Set::size));
+
+        Set<String> candidates = new HashSet<>();
+        for (Set<String> usernames : postings.subList(0, postings.size() - minShared + 1)) {
+            candidates.addAll(usernames);
+        }
+
+        List<Map.Entry<String, Integer>> matches = new ArrayList<>();
+        for (String candidate : candidates) {
+            int distance = distance(key, candidate, maxEdits);
+            if (distance <= maxEdits) {
+                matches.add(new AbstractMap.SimpleImmutableEntry<>(candidate, distance));
+            }
+        }
+        matches.sort(Map.Entry.<String, Integer>comparingByValue().thenComparing(Map.Entry.comparingByKey()));
+
+        for (Map.Entry<String, Integer> match : matches) {
+            Set<Long> ids = idsByUsername.get(match.getKey());
+            if (ids != null && !addAll(result, ids, limit)) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    private void link(String key, Long id) {
+        Set<Long> ids = idsByUsername.get(key);
+        if (ids == null) {
+            ids = new ConcurrentSkipListSet<>();
+            idsByUsername.put(key, ids);
+            for (String gram : grams(key)) {
+                usernamesByGram.computeIfAbsent(gram, g -> ConcurrentHashMap.newKeySet()).add(key);
+            }
+        }
+        ids.add(id);
+    }
+
+    private void unlink(String key, Long id) {
+        Set<Long> ids = idsByUsername.get(key);
+        if (ids == null || !ids.remove(id) || !ids.isEmpty()) {
+            return;
+        }
+        idsByUsername.remove(key);
+        for (String gram : grams(key)) {
+            Set<String> keys = usernamesByGram.get(gram);
+            if (keys != null && keys.remove(key) && keys.isEmpty()) {
+                usernamesByGram.remove(gram);
+            }
+        }
+    }
+
+    /**
+     * Adds ids until {@code result} holds {@code limit}, {@code false} once it is full.
+     */
+    private static boolean addAll(List<Long> result, Set<Long> ids, int limit) {
+        for (Long id : ids) {
+            if (result.size() >= limit) {
+                return false;
+            }
+            result.add(id);
+        }
+        return result.size() < limit;
+    }
+
+    private static String normalize(String username) {
+        return username == null || username.isEmpty() ? null : username.toLowerCase(Locale.ROOT);
+    }
+
+    // padded, so the first and last characters are part of as many trigrams as the others
+    private static Set<String> grams(String key) {
+        String padded = "\u0000\u0000" + key + "\u0000\u0000";
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + GRAM <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+
+    /**
+     * Levenshtein distance, or {@code max + 1} as soon as it is known to exceed {@code max}.
+     */
+    static int distance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return max + 1;
+        }
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = current[0];
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                current[j] = Math.min(Math.min(current[j - 1] + 1, previous[j] + 1), previous[j - 1] + cost);
+                rowMin = Math.min(rowMin, current[j]);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+}
@@ -0,0 +1,142 @@
+package study.datajpa.repository.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.*;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Keeps {@link UsernameIndex} in line with the member table. The index is loaded once the application
+ * is ready, and follows member inserts, updates and deletes as their transactions commit, so rolled
+ * back changes never reach it. Members changed while the load runs keep the committed change, the
+ * load's possibly older row for them is dropped.
+ * <p>
+ * Bulk JPQL or native statements changing usernames bypass the entity events and are not seen.
+ * Deleted members the index still returns are harmless, loading them by id drops them.
+ */
+@Slf4j
+@Component
+public class UsernameIndexer implements PostCommitInsertEventListener, PostCommitUpdateEventListener,
+        PostCommitDeleteEventListener {
+
+    private static final int FETCH_SIZE = 1000;
+
+    private final UsernameIndex index;
+    private final EntityManagerFactory emf;
+    private final EntityManager em;
+    private final TransactionTemplate readOnly;
+
+    // ids changed by commits while the load runs, null otherwise
+    private Set<Long> changedDuringLoad;
+
+    public UsernameIndexer(UsernameIndex index, EntityManagerFactory emf, EntityManager em,
+                           PlatformTransactionManager transactionManager) {
+        this.index = index;
+        this.emf = emf;
+        this.em = em;
+        this.readOnly = new TransactionTemplate(transactionManager);
+        this.readOnly.setReadOnly(true);
+    }
+
+    @PostConstruct
+    void register() {
+        EventListenerRegistry registry = emf.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry()
+                .getService(EventListenerRegistry.class);
+
+        registry.appendListeners(EventType.POST_COMMIT_INSERT, this);
+        registry.appendListeners(EventType.POST_COMMIT_UPDATE, this);
+        registry.appendListeners(EventType.POST_COMMIT_DELETE, this);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long started = System.nanoTime();
+        synchronized (this) {
+            changedDuringLoad = new HashSet<>();
+        }
+        try {
+            readOnly.executeWithoutResult(status -> {
+                try (Stream<Object[]> rows = em.createQuery("select m.id, m.username from Member m", Object[].class)
+                        .setHint("org.hibernate.fetchSize", FETCH_SIZE)
+                        .getResultStream()) {
+                    rows.forEach(row -> loaded((Long) row[0], (String) row[1]));
+                }
+            });
+        } finally {
+            synchronized (this) {
+                changedDuringLoad = null;
+            }
+        }
+        log.info("Indexed {} member usernames in {} ms", index.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    private synchronized void loaded(Long id, String username) {
+        if (!changedDuringLoad.contains(id)) {
+            index.put(id, username);
+        }
+    }
+
+    /**
+     * Indexes a committed change, a {@code null} username removes the member.
+     */
+    private synchronized void changed(Long id, String username) {
+        if (changedDuringLoad != null) {
+            changedDuringLoad.add(id);
+        }
+        index.put(id, username);
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        if (event.getEntity() instanceof Member) {
+            changed((Long) event.getId(), ((Member) event.getEntity()).getUsername());
+        }
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        if (event.getEntity() instanceof Member) {
+            changed((Long) event.getId(), ((Member) event.getEntity()).getUsername());
+        }
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        if (event.getEntity() instanceof Member) {
+            changed((Long) event.getId(), null);
+        }
+    }
+
+    // rolled back, the index never saw the change
+    @Override
+    public void onPostInsertCommitFailed(PostInsertEvent event) {
+    }
+
+    @Override
+    public void onPostUpdateCommitFailed(PostUpdateEvent event) {
+    }
+
+    @Override
+    public void onPostDeleteCommitFailed(PostDeleteEvent event) {
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return Member.class.isAssignableFrom(persister.getMappedClass());
+    }
+}
@@ -0,0 +1,59 @@
+package study.datajpa.repository.spec;
+
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.lang.Nullable;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A {@link Specification} that can also be rendered to JPQL. The JPQL text depends on {@link #shape()}
+ * only, values are bound as parameters, so repositories render each shape once and Hibernate reuses
+ * the query plan of the text. The criteria form is still used where Spring Data needs it (paging, counts).
+ * <p>
+ * Composing with {@link #and}/{@link #or} keeps the result compilable as long as both sides are.
+ */
+public interface CompilableSpecification<T> extends Specification<T> {
+
+    /**
+     * Identifies the rendered JPQL: two specifications with the same shape must render the same text.
+     */
+    String shape();
+
+    /**
+     * Returns the condition on {@link JpqlRenderer#root()}, or {@code null} for no restriction.
+     * Every {@link JpqlRenderer#parameter()} used needs a value in {@link #collectValues}, in the same order.
+     */
+    @Nullable
+    String render(JpqlRenderer renderer);
+
+    void collectValues(List<Object> values);
+
+    @Override
+    default Specification<T> and(@Nullable Specification<T> other) {
+        if (other instanceof CompilableSpecification) {
+            return new CompositeSpecification<>(CompositeSpecification.Operator.AND, this, (CompilableSpecification<T>) other);
+        }
+        return Specification.super.and(other);
+    }
+
+    @Override
+    default Specification<T> or(@Nullable Specification<T> other) {
+        if (other instanceof CompilableSpecification) {
+            return new CompositeSpecification<>(CompositeSpecification.Operator.OR, this, (CompilableSpecification<T>) other);
+        }
+        return Specification.super.or(other);
+    }
+
+    /**
+     * A single condition given in both forms.
+     *
+     * @param jpql     renders the condition, {@code null} for no restriction
+     * @param criteria the same condition as a criteria predicate
+     * @param values   bound to the parameters {@code jpql} requests, in order
+     */
+    static <T> CompilableSpecification<T> of(String shape, Function<JpqlRenderer, String> jpql,
+                                              Specification<T> criteria, Object... values) {
+        return new LeafSpecification<>(shape, jpql, criteria, values);
+    }
+}
@@ -0,0 +1,55 @@
+package study.datajpa.repository.spec;
+
+import lombok.RequiredArgsConstructor;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.List;
+
+/**
+ * Like Spring Data's own composition, a side without restriction is left out.
+ */
+@RequiredArgsConstructor
+class CompositeSpecification<T> implements CompilableSpecification<T> {
+
+    enum Operator {
+        AND, OR
+    }
+
+    private final Operator operator;
+    private final CompilableSpecification<T> left;
+    private final CompilableSpecification<T> right;
+
+    @Override
+    public String shape() {
+        return "(" + left.shape() + " " + operator + " " + right.shape() + ")";
+    }
+
+    @Override
+    public String render(JpqlRenderer renderer) {
+        String leftJpql = left.render(renderer);
+        String rightJpql = right.render(renderer);
+        if (leftJpql == null || rightJpql == null) {
+            return leftJpql != null ? leftJpql : rightJpql;
+        }
+        return "(" + leftJpql + ") " + operator.name().toLowerCase() + " (" + rightJpql + ")";
+    }
+
+    @Override
+    public void collectValues(List<Object> values) {
+        left.collectValues(values);
+        right.collectValues(values);
+    }
+
+    @Override
+    public Predicate toPredicate(Root<T> root, CriteriaQuery<?> query, CriteriaBuilder builder) {
+        Predicate leftPredicate = left.toPredicate(root, query, builder);
+        Predicate rightPredicate = right.toPredicate(root, query, builder);
+        if (leftPredicate == null || rightPredicate == null) {
+            return leftPredicate != null ? leftPredicate : rightPredicate;
+        }
+        return operator == Operator.AND ? builder.and(leftPredicate, rightPredicate) : builder.or(leftPredicate, rightPredicate);
+    }
+}
@@ -0,0 +1,51 @@
+package study.datajpa.repository.spec;
+
+import javax.persistence.criteria.JoinType;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Collects the joins and parameters of a {@link CompilableSpecification} while it is rendered.
+ */
+public final class JpqlRenderer {
+
+    static final String ROOT = "e";
+
+    // join clause -> alias
+    private final Map<String, String> joins = new LinkedHashMap<>();
+    private int parameters;
+
+    JpqlRenderer() {
+    }
+
+    public String root() {
+        return ROOT;
+    }
+
+    /**
+     * Alias of a join on an attribute of the root. Joining the same attribute twice reuses the join.
+     */
+    public String join(String attribute, JoinType type) {
+        String clause = (type == JoinType.LEFT ? "left join " : "inner join ") + ROOT + "." + attribute;
+        return joins.computeIfAbsent(clause, key -> "j" + joins.size());
+    }
+
+    /**
+     * Placeholder for the next value of {@link CompilableSpecification#collectValues}.
+     */
+    public String parameter() {
+        return ":" + parameterName(parameters++);
+    }
+
+    static String parameterName(int index) {
+        return "p" + index;
+    }
+
+    Map<String, String> joins() {
+        return joins;
+    }
+
+    int parameterCount() {
+        return parameters;
+    }
+}
@@ -0,0 +1,41 @@
+package study.datajpa.repository.spec;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+@RequiredArgsConstructor
+class LeafSpecification<T> implements CompilableSpecification<T> {
+
+    private final String shape;
+    private final Function<JpqlRenderer, String> jpql;
+    private final Specification<T> criteria;
+    private final Object[] values;
+
+    @Override
+    public String shape() {
+        return shape;
+    }
+
+    @Override
+    public String render(JpqlRenderer renderer) {
+        return jpql.apply(renderer);
+    }
+
+    @Override
+    public void collectValues(List<Object> values) {
+        Collections.addAll(values, this.values);
+    }
+
+    @Override
+    public Predicate toPredicate(Root<T> root, CriteriaQuery<?> query, CriteriaBuilder criteriaBuilder) {
+        return criteria.toPredicate(root, query, criteriaBuilder);
+    }
+}
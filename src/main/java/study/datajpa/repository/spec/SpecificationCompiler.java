@@ -0,0 +1,82 @@
+package study.datajpa.repository.spec;
+
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.TypedQuery;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Consumer;
+
+/**
+ * Renders {@link CompilableSpecification}s of one entity to JPQL, once per shape and sort.
+ * Queries of the same shape then share one JPQL text, and with it Hibernate's cached query plan;
+ * only the parameter values differ. Every newly compiled JPQL text is handed to a listener, e.g. for
+ * index checks.
+ */
+public class SpecificationCompiler {
+
+    private final String entityName;
+    private final Consumer<String> compiledListener;
+    private final ConcurrentMap<List<Object>, Compiled> compiled = new ConcurrentHashMap<>();
+
+    public SpecificationCompiler(String entityName, Consumer<String> compiledListener) {
+        this.entityName = entityName;
+        this.compiledListener = compiledListener;
+    }
+
+    public <T> TypedQuery<T> createQuery(EntityManager em, Class<T> domainClass,
+                                         CompilableSpecification<T> specification, Sort sort) {
+        List<Object> key = List.of(specification.shape(), sort);
+        Compiled query = compiled.get(key);
+        if (query == null) {
+            Compiled fresh = compile(specification, sort);
+            query = compiled.putIfAbsent(key, fresh);
+            if (query == null) {
+                query = fresh;
+                // outside the map, the listener may be slow
+                compiledListener.accept(fresh.jpql);
+            }
+        }
+
+        List<Object> values = new ArrayList<>(query.parameterCount);
+        specification.collectValues(values);
+        if (values.size() != query.parameterCount) {
+            throw new IllegalStateException("Specification " + specification.shape() + " renders " +
+                    query.parameterCount + " parameters but has " + values.size() + " values");
+        }
+
+        TypedQuery<T> typedQuery = em.createQuery(query.jpql, domainClass);
+        for (int i = 0; i < values.size(); i++) {
+            typedQuery.setParameter(JpqlRenderer.parameterName(i), values.get(i));
+        }
+        return typedQuery;
+    }
+
+    private Compiled compile(CompilableSpecification<?> specification, Sort sort) {
+        JpqlRenderer renderer = new JpqlRenderer();
+        String condition = specification.render(renderer);
+
+        String root = JpqlRenderer.ROOT;
+        StringBuilder jpql = new StringBuilder("select ").append(root).append(" from ").append(entityName).append(' ').append(root);
+        renderer.joins().forEach((join, alias) -> jpql.append(' ').append(join).append(' ').append(alias));
+        if (condition != null) {
+            jpql.append(" where ").append(condition);
+        }
+        return new Compiled(QueryUtils.applySorting(jpql.toString(), sort, root), renderer.parameterCount());
+    }
+
+    private static class Compiled {
+
+        private final String jpql;
+        private final int parameterCount;
+
+        private Compiled(String jpql, int parameterCount) {
+            this.jpql = jpql;
+            this.parameterCount = parameterCount;
+        }
+    }
+}
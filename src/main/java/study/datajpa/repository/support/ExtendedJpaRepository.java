@@ -0,0 +1,206 @@
+package study.datajpa.repository.support;
+
+import org.hibernate.engine.spi.EntityEntry;
+import org.hibernate.engine.spi.PersistenceContext;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.engine.spi.Status;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.support.CrudMethodMetadata;
+import org.springframework.data.jpa.repository.support.JpaEntityInformation;
+import org.springframework.data.jpa.repository.support.SimpleJpaRepository;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.lang.Nullable;
+import study.datajpa.repository.count.CountMode;
+import study.datajpa.repository.count.CountStrategy;
+import study.datajpa.repository.count.PageCounter;
+import study.datajpa.repository.index.IndexAdvisor;
+import study.datajpa.repository.spec.CompilableSpecification;
+import study.datajpa.repository.spec.SpecificationCompiler;
+
+import javax.persistence.EntityManager;
+import javax.persistence.NoResultException;
+import javax.persistence.PersistenceUnitUtil;
+import javax.persistence.TypedQuery;
+import java.io.Serializable;
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * Base class of all repositories. Applies {@link CountStrategy} to the paging CRUD methods and
+ * runs {@link CompilableSpecification}s through cached JPQL instead of the criteria API.
+ */
+public class ExtendedJpaRepository<T, ID> extends SimpleJpaRepository<T, ID> implements ExtendedRepository<T, ID> {
+
+    // stays well below the IN list limits of common databases
+    private static final int PRELOAD_CHUNK_SIZE = 1000;
+    // a power of two, so full chunks fill a padded IN list exactly
+    private static final int MULTI_LOAD_CHUNK_SIZE = 512;
+
+    private final JpaEntityInformation<T, ?> entityInformation;
+    private final EntityManager em;
+    private final PageCounter pageCounter;
+    private final SpecificationCompiler specificationCompiler;
+
+    public ExtendedJpaRepository(JpaEntityInformation<T, ?> entityInformation, EntityManager entityManager,
+                                 PageCounter pageCounter, IndexAdvisor indexAdvisor) {
+        super(entityInformation, entityManager);
+        this.entityInformation = entityInformation;
+        this.em = entityManager;
+        this.pageCounter = pageCounter;
+        String source = entityInformation.getEntityName() + " specification";
+        this.specificationCompiler = new SpecificationCompiler(entityInformation.getEntityName(),
+                jpql -> indexAdvisor.check(source, jpql));
+    }
+
+    @Override
+    public void preload(Collection<T> entities, String attribute) {
+        // rejects unknown attributes before they end up in the query text
+        em.getMetamodel().entity(getDomainClass()).getAttribute(attribute);
+
+        PersistenceUnitUtil util = em.getEntityManagerFactory().getPersistenceUnitUtil();
+        List<T> unloaded = entities.stream()
+                .filter(entity -> !util.isLoaded(entity, attribute))
+                .distinct()
+                .collect(Collectors.toList());
+
+        String jpql = "select distinct e from " + entityInformation.getEntityName() + " e" +
+                " left join fetch e." + attribute + " where e in :entities";
+        for (int from = 0; from < unloaded.size(); from += PRELOAD_CHUNK_SIZE) {
+            em.createQuery(jpql, getDomainClass())
+                    .setParameter("entities", unloaded.subList(from, Math.min(from + PRELOAD_CHUNK_SIZE, unloaded.size())))
+                    .getResultList();
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<T> multiLoad(Iterable<ID> ids) {
+        Set<ID> distinct = new LinkedHashSet<>();
+        ids.forEach(distinct::add);
+
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        PersistenceContext persistenceContext = session.getPersistenceContextInternal();
+        EntityPersister persister = session.getFactory().getMetamodel().entityPersister(getDomainClass());
+
+        Map<ID, T> found = new HashMap<>();
+        List<ID> missing = new ArrayList<>();
+        for (ID id : distinct) {
+            Object managed = persistenceContext.getEntity(session.generateEntityKey((Serializable) id, persister));
+            if (managed == null) {
+                missing.add(id);
+            } else if (!isRemoved(persistenceContext.getEntry(managed))) {
+                found.put(id, getDomainClass().cast(managed));
+            }
+        }
+
+        String jpql = "select e from " + entityInformation.getEntityName() + " e" +
+                " where e." + entityInformation.getIdAttribute().getName() + " in :ids";
+        for (int from = 0; from < missing.size(); from += MULTI_LOAD_CHUNK_SIZE) {
+            List<T> loaded = em.createQuery(jpql, getDomainClass())
+                    .setParameter("ids", missing.subList(from, Math.min(from + MULTI_LOAD_CHUNK_SIZE, missing.size())))
+                    .getResultList();
+            for (T entity : loaded) {
+                found.put((ID) entityInformation.getId(entity), entity);
+            }
+        }
+
+        return distinct.stream()
+                .map(found::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<T> findAllById(Iterable<ID> ids) {
+        // composite ids cannot be matched with a single IN list
+        if (entityInformation.hasCompositeId()) {
+            return super.findAllById(ids);
+        }
+        return multiLoad(ids);
+    }
+
+    private static boolean isRemoved(EntityEntry entry) {
+        return entry.getStatus() == Status.DELETED || entry.getStatus() == Status.GONE;
+    }
+
+    @Override
+    public List<T> findAll(@Nullable Specification<T> spec) {
+        return findAll(spec, Sort.unsorted());
+    }
+
+    @Override
+    public List<T> findAll(@Nullable Specification<T> spec, Sort sort) {
+        if (!isCompilable(spec)) {
+            return super.findAll(spec, sort);
+        }
+        return compiledQuery(spec, sort).getResultList();
+    }
+
+    @Override
+    public Optional<T> findOne(@Nullable Specification<T> spec) {
+        if (!isCompilable(spec)) {
+            return super.findOne(spec);
+        }
+        try {
+            return Optional.of(compiledQuery(spec, Sort.unsorted()).setMaxResults(2).getSingleResult());
+        } catch (NoResultException e) {
+            return Optional.empty();
+        }
+    }
+
+    private static boolean isCompilable(@Nullable Specification<?> spec) {
+        return spec instanceof CompilableSpecification;
+    }
+
+    // applies lock mode, hints and entity graphs like SimpleJpaRepository does for criteria queries
+    private TypedQuery<T> compiledQuery(Specification<T> spec, Sort sort) {
+        TypedQuery<T> query = specificationCompiler.createQuery(em, getDomainClass(), (CompilableSpecification<T>) spec, sort);
+        CrudMethodMetadata metadata = getRepositoryMethodMetadata();
+        if (metadata != null && metadata.getLockModeType() != null) {
+            query.setLockMode(metadata.getLockModeType());
+        }
+        getQueryHints().withFetchGraphs(em).forEach(query::setHint);
+        return query;
+    }
+
+    @Override
+    protected <S extends T> Page<S> readPage(TypedQuery<S> query, Class<S> domainClass, Pageable pageable,
+                                             @Nullable Specification<S> spec) {
+        Method method = currentMethod();
+        CountStrategy strategy = method == null ? null : AnnotatedElementUtils.findMergedAnnotation(method, CountStrategy.class);
+
+        // specifications have no identity, so their totals cannot be cached
+        if (strategy == null || strategy.value() == CountMode.EXACT || spec != null) {
+            return super.readPage(query, domainClass, pageable, spec);
+        }
+
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+        }
+
+        return PageableExecutionUtils.getPage(query.getResultList(), pageable,
+                () -> pageCounter.count(getDomainClass(), method, strategy,
+                        () -> executeCountQuery(getCountQuery(null, domainClass))));
+    }
+
+    @Nullable
+    private Method currentMethod() {
+        CrudMethodMetadata metadata = getRepositoryMethodMetadata();
+        return metadata == null ? null : metadata.getMethod();
+    }
+
+    private static long executeCountQuery(TypedQuery<Long> query) {
+        long total = 0L;
+        for (Long element : query.getResultList()) {
+            total += element == null ? 0 : element;
+        }
+        return total;
+    }
+}
@@ -0,0 +1,113 @@
+package study.datajpa.repository.support;
+
+import org.springframework.beans.factory.BeanFactory;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.jpa.repository.query.AbstractJpaQuery;
+import org.springframework.data.jpa.repository.support.JpaEntityInformation;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.data.jpa.repository.support.JpaRepositoryImplementation;
+import org.springframework.data.projection.ProjectionFactory;
+import org.springframework.data.repository.core.RepositoryInformation;
+import org.springframework.data.repository.core.RepositoryMetadata;
+import org.springframework.data.repository.query.QueryLookupStrategy;
+import org.springframework.data.repository.query.QueryMethodEvaluationContextProvider;
+import org.springframework.data.repository.query.RepositoryQuery;
+import org.springframework.lang.Nullable;
+import org.springframework.util.Assert;
+import study.datajpa.repository.count.CountMode;
+import study.datajpa.repository.count.CountStrategy;
+import study.datajpa.repository.count.PageCounter;
+import study.datajpa.repository.index.IndexAdvisor;
+import study.datajpa.repository.projection.GeneratedProjectionFactory;
+import study.datajpa.repository.projection.GeneratedProjections;
+
+import javax.persistence.EntityManager;
+import javax.persistence.QueryHint;
+import java.lang.reflect.Method;
+import java.util.Optional;
+
+public class ExtendedJpaRepositoryFactory extends JpaRepositoryFactory {
+
+    private final EntityManager entityManager;
+    private final PageCounter pageCounter;
+    private final GeneratedProjections generatedProjections;
+    private final IndexAdvisor indexAdvisor;
+
+    public ExtendedJpaRepositoryFactory(EntityManager entityManager, PageCounter pageCounter,
+                                        GeneratedProjections generatedProjections, IndexAdvisor indexAdvisor) {
+        super(entityManager);
+        this.entityManager = entityManager;
+        this.pageCounter = pageCounter;
+        this.generatedProjections = generatedProjections;
+        this.indexAdvisor = indexAdvisor;
+    }
+
+    @Override
+    protected JpaRepositoryImplementation<?, ?> getTargetRepository(RepositoryInformation information,
+                                                                    EntityManager entityManager) {
+        JpaEntityInformation<?, ?> entityInformation = getEntityInformation(information.getDomainType());
+        return getTargetRepositoryViaReflection(information, entityInformation, entityManager, pageCounter,
+                indexAdvisor);
+    }
+
+    @Override
+    protected Class<?> getRepositoryBaseClass(RepositoryMetadata metadata) {
+        return ExtendedJpaRepository.class;
+    }
+
+    @Override
+    protected ProjectionFactory getProjectionFactory(ClassLoader classLoader, BeanFactory beanFactory) {
+        return new GeneratedProjectionFactory(generatedProjections, classLoader, beanFactory);
+    }
+
+    @Override
+    protected Optional<QueryLookupStrategy> getQueryLookupStrategy(@Nullable QueryLookupStrategy.Key key,
+                                                                   QueryMethodEvaluationContextProvider evaluationContextProvider) {
+        return super.getQueryLookupStrategy(key, evaluationContextProvider)
+                .map(delegate -> (QueryLookupStrategy) (method, metadata, projectionFactory, namedQueries) ->
+                        decorate(delegate.resolveQuery(method, metadata, projectionFactory, namedQueries), method, metadata));
+    }
+
+    private RepositoryQuery decorate(RepositoryQuery query, Method method, RepositoryMetadata metadata) {
+        if (!(query instanceof AbstractJpaQuery)) {
+            return query;
+        }
+        AbstractJpaQuery jpaQuery = (AbstractJpaQuery) query;
+
+        Class<?> returnedType = jpaQuery.getQueryMethod().getResultProcessor().getReturnedType().getReturnedType();
+        if (returnedType.isInterface()) {
+            generatedProjections.prepare(returnedType);
+        }
+
+        if (jpaQuery.getQueryMethod().isModifyingQuery()) {
+            return new InvalidatingRepositoryQuery(query, metadata.getDomainType(), pageCounter);
+        }
+
+        RepositoryQuery decorated = query;
+        CountStrategy strategy = AnnotatedElementUtils.findMergedAnnotation(method, CountStrategy.class);
+        if (strategy != null && strategy.value() != CountMode.EXACT && jpaQuery.getQueryMethod().isPageQuery()) {
+            Assert.state(PageCountRepositoryQuery.supports(jpaQuery.getQueryMethod()),
+                    () -> "@CountStrategy needs a plain @Query without SpEL or LIKE wildcards: " + method);
+            decorated = new PageCountRepositoryQuery(jpaQuery.getQueryMethod(), method, strategy, pageCounter,
+                    entityManager);
+        }
+        if (isReadOnlyHinted(method)) {
+            decorated = new ReadOnlyRepositoryQuery(decorated);
+        }
+        return decorated;
+    }
+
+    private static boolean isReadOnlyHinted(Method method) {
+        QueryHints hints = AnnotatedElementUtils.findMergedAnnotation(method, QueryHints.class);
+        if (hints == null) {
+            return false;
+        }
+        for (QueryHint hint : hints.value()) {
+            if (org.hibernate.annotations.QueryHints.READ_ONLY.equals(hint.name()) && Boolean.parseBoolean(hint.value())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
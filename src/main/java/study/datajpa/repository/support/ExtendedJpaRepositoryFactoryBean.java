@@ -0,0 +1,55 @@
+package study.datajpa.repository.support;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactoryBean;
+import org.springframework.data.repository.Repository;
+import org.springframework.data.repository.core.support.RepositoryFactorySupport;
+import study.datajpa.monitoring.RepositoryMetrics;
+import study.datajpa.monitoring.RepositoryMetricsInterceptor;
+import study.datajpa.repository.count.PageCounter;
+import study.datajpa.repository.index.IndexAdvisor;
+import study.datajpa.repository.projection.GeneratedProjections;
+
+import javax.persistence.EntityManager;
+
+public class ExtendedJpaRepositoryFactoryBean<T extends Repository<S, ID>, S, ID> extends JpaRepositoryFactoryBean<T, S, ID> {
+
+    private PageCounter pageCounter;
+    private RepositoryMetrics repositoryMetrics;
+    private GeneratedProjections generatedProjections;
+    private IndexAdvisor indexAdvisor;
+
+    public ExtendedJpaRepositoryFactoryBean(Class<? extends T> repositoryInterface) {
+        super(repositoryInterface);
+    }
+
+    @Autowired
+    public void setPageCounter(PageCounter pageCounter) {
+        this.pageCounter = pageCounter;
+    }
+
+    @Autowired
+    public void setRepositoryMetrics(RepositoryMetrics repositoryMetrics) {
+        this.repositoryMetrics = repositoryMetrics;
+    }
+
+    @Autowired
+    public void setGeneratedProjections(GeneratedProjections generatedProjections) {
+        this.generatedProjections = generatedProjections;
+    }
+
+    @Autowired
+    public void setIndexAdvisor(IndexAdvisor indexAdvisor) {
+        this.indexAdvisor = indexAdvisor;
+    }
+
+    @Override
+    protected RepositoryFactorySupport createRepositoryFactory(EntityManager entityManager) {
+        ExtendedJpaRepositoryFactory factory = new ExtendedJpaRepositoryFactory(entityManager, pageCounter,
+                generatedProjections, indexAdvisor);
+        factory.addRepositoryProxyPostProcessor((proxyFactory, repositoryInformation) ->
+                proxyFactory.addAdvice(new RepositoryMetricsInterceptor(repositoryMetrics,
+                        repositoryInformation.getRepositoryInterface().getSimpleName())));
+        return factory;
+    }
+}
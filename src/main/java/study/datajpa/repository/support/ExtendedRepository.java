@@ -0,0 +1,26 @@
+package study.datajpa.repository.support;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.repository.NoRepositoryBean;
+
+import java.util.Collection;
+import java.util.List;
+
+@NoRepositoryBean
+public interface ExtendedRepository<T, ID> extends JpaRepository<T, ID> {
+
+    /**
+     * Initializes {@code attribute} of the given managed entities with one fetch join query per chunk
+     * instead of one lazy load per entity. Entities whose attribute is already loaded are skipped.
+     */
+    void preload(Collection<T> entities, String attribute);
+
+    /**
+     * Loads the entities with the given ids, in the order of {@code ids} and without duplicates.
+     * Entities already in the persistence context are returned without a query, the rest are loaded
+     * in chunks whose IN lists are padded to powers of two, so lookups of any size reuse a few
+     * statements. Ids without an entity are left out.
+     */
+    List<T> multiLoad(Iterable<ID> ids);
+
+}
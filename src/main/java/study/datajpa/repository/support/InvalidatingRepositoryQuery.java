@@ -0,0 +1,31 @@
+package study.datajpa.repository.support;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.repository.query.QueryMethod;
+import org.springframework.data.repository.query.RepositoryQuery;
+import study.datajpa.repository.count.PageCounter;
+
+/**
+ * Bulk {@code @Modifying} queries bypass entity events, so cached totals are dropped here instead.
+ */
+@RequiredArgsConstructor
+class InvalidatingRepositoryQuery implements RepositoryQuery {
+
+    private final RepositoryQuery delegate;
+    private final Class<?> domainType;
+    private final PageCounter pageCounter;
+
+    @Override
+    public Object execute(Object[] parameters) {
+        try {
+            return delegate.execute(parameters);
+        } finally {
+            pageCounter.invalidate(domainType);
+        }
+    }
+
+    @Override
+    public QueryMethod getQueryMethod() {
+        return delegate.getQueryMethod();
+    }
+}
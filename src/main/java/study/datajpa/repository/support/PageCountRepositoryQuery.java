@@ -0,0 +1,190 @@
+package study.datajpa.repository.support;
+
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.jpa.repository.query.JpaParameters;
+import org.springframework.data.jpa.repository.query.JpaParametersParameterAccessor;
+import org.springframework.data.jpa.repository.query.JpaQueryMethod;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.repository.query.Parameter;
+import org.springframework.data.repository.query.QueryMethod;
+import org.springframework.data.repository.query.RepositoryQuery;
+import org.springframework.data.repository.query.ResultProcessor;
+import org.springframework.data.repository.query.ReturnedType;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.util.LinkedCaseInsensitiveMap;
+import org.springframework.util.StringUtils;
+import study.datajpa.repository.count.CountStrategy;
+import study.datajpa.repository.count.PageCounter;
+
+import javax.persistence.EntityManager;
+import javax.persistence.Query;
+import javax.persistence.QueryHint;
+import javax.persistence.Tuple;
+import javax.persistence.TupleElement;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * Runs an annotated {@code @Query} page method like Spring Data's paged execution, but obtains the total
+ * through the {@link PageCounter} instead of always running the count query.
+ * <p>
+ * Content and count queries are built from the method's {@code @Query} metadata, so only methods that
+ * {@link #supports(JpaQueryMethod) Spring Data would run as written} are handled here.
+ */
+class PageCountRepositoryQuery implements RepositoryQuery {
+
+    // SpEL and LIKE wildcards around parameters are rewritten by Spring Data before binding
+    private static final Pattern REWRITTEN = Pattern.compile("#\\{|%\\s*[:?]|[:?]\\w*\\s*%");
+
+    private final JpaQueryMethod queryMethod;
+    private final Method method;
+    private final CountStrategy strategy;
+    private final PageCounter pageCounter;
+    private final EntityManager em;
+
+    private final String queryString;
+    private final String countQueryString;
+    private final String alias;
+
+    PageCountRepositoryQuery(JpaQueryMethod queryMethod, Method method, CountStrategy strategy, PageCounter pageCounter,
+                             EntityManager em) {
+        this.queryMethod = queryMethod;
+        this.method = method;
+        this.strategy = strategy;
+        this.pageCounter = pageCounter;
+        this.em = em;
+
+        this.queryString = queryMethod.getAnnotatedQuery();
+        this.countQueryString = StringUtils.hasText(queryMethod.getCountQuery()) ? queryMethod.getCountQuery()
+                : QueryUtils.createCountQueryFor(queryString, queryMethod.getCountQueryProjection());
+        this.alias = QueryUtils.detectAlias(queryString);
+    }
+
+    static boolean supports(JpaQueryMethod queryMethod) {
+        String query = queryMethod.getAnnotatedQuery();
+        String countQuery = queryMethod.getCountQuery();
+        return StringUtils.hasText(query) && !REWRITTEN.matcher(query).find()
+                && (countQuery == null || !REWRITTEN.matcher(countQuery).find());
+    }
+
+    @Override
+    public Object execute(Object[] parameters) {
+        JpaParametersParameterAccessor accessor = new JpaParametersParameterAccessor(queryMethod.getParameters(), parameters);
+        ResultProcessor processor = queryMethod.getResultProcessor().withDynamicProjection(accessor);
+        Pageable pageable = accessor.getPageable();
+
+        Query query = createQuery(processor.getReturnedType(), accessor.getSort());
+        bind(query, accessor);
+        if (pageable.isPaged()) {
+            query.setFirstResult((int) pageable.getOffset());
+            query.setMaxResults(pageable.getPageSize());
+        }
+
+        List<?> content = query.getResultList();
+        Page<?> page = PageableExecutionUtils.getPage(content, pageable,
+                () -> pageCounter.count(queryMethod.getEntityInformation().getJavaType(), countKey(parameters), strategy,
+                        () -> exactCount(accessor)));
+
+        return processor.processResult(page, PageCountRepositoryQuery::toMap);
+    }
+
+    @Override
+    public QueryMethod getQueryMethod() {
+        return queryMethod;
+    }
+
+    private Query createQuery(ReturnedType returnedType, Sort sort) {
+        String sorted = QueryUtils.applySorting(queryString, sort, alias);
+        // interface projections read their values from tuples, as in Spring Data's own execution
+        boolean tuples = returnedType.isProjecting() && returnedType.getReturnedType().isInterface()
+                && !QueryUtils.hasConstructorExpression(queryString);
+
+        Query query;
+        if (queryMethod.isNativeQuery()) {
+            query = tuples ? em.createNativeQuery(sorted, Tuple.class)
+                    : queryMethod.isQueryForEntity() ? em.createNativeQuery(sorted, returnedType.getDomainType())
+                    : em.createNativeQuery(sorted);
+        } else {
+            query = tuples ? em.createQuery(sorted, Tuple.class) : em.createQuery(sorted);
+        }
+
+        QueryHints hints = AnnotatedElementUtils.findMergedAnnotation(method, QueryHints.class);
+        if (hints != null) {
+            for (QueryHint hint : hints.value()) {
+                query.setHint(hint.name(), hint.value());
+            }
+        }
+        Lock lock = AnnotatedElementUtils.findMergedAnnotation(method, Lock.class);
+        if (lock != null) {
+            query.setLockMode(lock.value());
+        }
+        return query;
+    }
+
+    private long exactCount(JpaParametersParameterAccessor accessor) {
+        Query query = queryMethod.isNativeQuery() ? em.createNativeQuery(countQueryString) : em.createQuery(countQueryString);
+        bind(query, accessor);
+
+        List<?> totals = query.getResultList();
+        if (totals.size() != 1) {
+            return totals.size();
+        }
+        Object total = totals.get(0);
+        return total == null ? 0 : ((Number) total).longValue();
+    }
+
+    // binds only what the query declares, methods may take parameters that one of the two queries does not use
+    private void bind(Query query, JpaParametersParameterAccessor accessor) {
+        JpaParameters methodParameters = queryMethod.getParameters().getBindableParameters();
+        for (javax.persistence.Parameter<?> parameter : query.getParameters()) {
+            if (parameter.getName() != null) {
+                query.setParameter(parameter.getName(), accessor.getBindableValue(indexOf(methodParameters, parameter.getName())));
+            } else {
+                query.setParameter(parameter.getPosition(), accessor.getBindableValue(parameter.getPosition() - 1));
+            }
+        }
+    }
+
+    private int indexOf(JpaParameters methodParameters, String name) {
+        for (int i = 0; i < methodParameters.getNumberOfParameters(); i++) {
+            Parameter parameter = methodParameters.getParameter(i);
+            if (Optional.of(name).equals(parameter.getName())) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("No method parameter named " + name + " on " + method);
+    }
+
+    private List<Object> countKey(Object[] parameters) {
+        List<Object> key = new ArrayList<>();
+        key.add(method);
+        for (Object parameter : parameters) {
+            if (!(parameter instanceof Pageable) && !(parameter instanceof Sort)) {
+                key.add(parameter);
+            }
+        }
+        return key;
+    }
+
+    // interface projections come back as tuples, projections read them as maps
+    private static Object toMap(Object source) {
+        if (!(source instanceof Tuple)) {
+            return source;
+        }
+        Tuple tuple = (Tuple) source;
+        Map<String, Object> map = new LinkedCaseInsensitiveMap<>();
+        for (TupleElement<?> element : tuple.getElements()) {
+            map.put(element.getAlias(), tuple.get(element));
+        }
+        return map;
+    }
+}
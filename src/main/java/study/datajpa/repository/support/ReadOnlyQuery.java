@@ -0,0 +1,19 @@
+package study.datajpa.repository.support;
+
+import org.springframework.data.jpa.repository.QueryHints;
+
+import javax.persistence.QueryHint;
+import java.lang.annotation.*;
+
+/**
+ * Marks a repository method whose results are only read, e.g. by listing endpoints. Entities are
+ * loaded read-only: Hibernate keeps no copy of their loaded state for dirty checking and skips them
+ * when flushing, so changes made to them are never written. Query methods called outside a
+ * transaction may also read from the replica, see {@link ReadOnlyRepositoryQuery}.
+ */
+@Target({ElementType.METHOD, ElementType.ANNOTATION_TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+@QueryHints(@QueryHint(name = org.hibernate.annotations.QueryHints.READ_ONLY, value = "true"))
+public @interface ReadOnlyQuery {
+}
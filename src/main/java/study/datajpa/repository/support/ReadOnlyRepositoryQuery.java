@@ -0,0 +1,30 @@
+package study.datajpa.repository.support;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.repository.query.QueryMethod;
+import org.springframework.data.repository.query.RepositoryQuery;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.datajpa.datasource.ReadOnlyRouting;
+
+/**
+ * Lets queries hinted {@code org.hibernate.readOnly} read from the replica when called outside a
+ * transaction. Inside one they stay on the transaction's connection so they see its writes.
+ */
+@RequiredArgsConstructor
+class ReadOnlyRepositoryQuery implements RepositoryQuery {
+
+    private final RepositoryQuery delegate;
+
+    @Override
+    public Object execute(Object[] parameters) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return delegate.execute(parameters);
+        }
+        return ReadOnlyRouting.call(() -> delegate.execute(parameters));
+    }
+
+    @Override
+    public QueryMethod getQueryMethod() {
+        return delegate.getQueryMethod();
+    }
+}
@@ -0,0 +1,44 @@
+package study.datajpa.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.datasource.BatchWorkload;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.repository.MemberRepository;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+@Service
+@RequiredArgsConstructor
+public class MemberExportService {
+
+    private final MemberRepository memberRepository;
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Writes every member as one JSON object per line. Rows are read through a cursor,
+     * so memory use does not depend on the table size.
+     */
+    @BatchWorkload
+    @Transactional(readOnly = true)
+    public long exportNdjson(OutputStream out) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(MemberDto.class);
+        long count = 0;
+        try (Stream<MemberDto> members = memberRepository.streamMemberDto()) {
+            Iterator<MemberDto> iterator = members.iterator();
+            while (iterator.hasNext()) {
+                out.write(writer.writeValueAsBytes(iterator.next()));
+                out.write('\n');
+                count++;
+            }
+        }
+        out.flush();
+        return count;
+    }
+}
@@ -0,0 +1,61 @@
+package study.datajpa.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "datasource.replica.url=jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1",
+        "datasource.replica.username=sa"
+})
+class ReplicaRoutingTest {
+
+    private static final String DATABASE = "select database()";
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    HikariDataSource primaryDataSource;
+
+    @Test
+    @DisplayName("Read-only transactions use the replica")
+    public void test1() throws Exception {
+        // given
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        TransactionTemplate readWrite = new TransactionTemplate(transactionManager);
+
+        // when
+        String read = readOnly.execute(status -> jdbcTemplate.queryForObject(DATABASE, String.class));
+        String write = readWrite.execute(status -> jdbcTemplate.queryForObject(DATABASE, String.class));
+
+        //then
+        assertThat(read).isEqualTo("REPLICA");
+        assertThat(write).isNotEqualTo("REPLICA");
+    }
+
+    @Test
+    @DisplayName("Reads fall back to the primary when the replica is down")
+    public void test2() throws Exception {
+        // given
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primaryDataSource,
+                new DriverManagerDataSource("jdbc:h2:tcp://localhost:1/~/unreachable", "sa", ""),
+                new ReplicaProperties());
+
+        // when
+        String database = ReadOnlyRouting.call(() -> new JdbcTemplate(routing).queryForObject(DATABASE, String.class));
+
+        //then
+        assertThat(database).isEqualTo(new JdbcTemplate(primaryDataSource).queryForObject(DATABASE, String.class));
+    }
+}
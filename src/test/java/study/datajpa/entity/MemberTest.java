@@ -1,5 +1,6 @@
 package study.datajpa.entity;
 
+import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
@@ -58,12 +59,13 @@ class MemberTest {
     public void test2() throws Exception {
         // given
         Member member = new Member("member1");
-        memberRepository.save(member); // @PrePersist
+        memberRepository.save(member);
+        em.flush(); // insert
 
         Thread.sleep(100);
         member.setUsername("member2");
 
-        em.flush(); // @PreUpdate
+        em.flush(); // update
         em.clear();
 
         // when
@@ -71,7 +73,26 @@ class MemberTest {
 
         //then
         assertThat(findMember.getCreatedDatetime()).isNotEqualTo(findMember.getLastModifiedDatetime());
-        assertThat(findMember.getCreatedBy()).isNotEqualTo(findMember.getLastModifiedBy());
+        // one auditor per request, or per application outside requests
+        assertThat(findMember.getCreatedBy()).isEqualTo(findMember.getLastModifiedBy());
+    }
+
+    @Test
+    @DisplayName("Entities written in one flush share the audit timestamp")
+    public void test3() throws Exception {
+        // given
+        Member member1 = new Member("auditMember1");
+        Member member2 = new Member("auditMember2");
+        memberRepository.save(member1);
+        memberRepository.save(member2);
+
+        // when
+        em.flush();
+
+        //then
+        assertThat(member1.getCreatedDatetime()).isNotNull();
+        assertThat(member1.getCreatedDatetime()).isEqualTo(member2.getCreatedDatetime());
+        assertThat(member1.getLastModifiedDatetime()).isEqualTo(member1.getCreatedDatetime());
     }
 
 }
\ No newline at end of file
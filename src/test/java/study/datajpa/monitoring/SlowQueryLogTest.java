@@ -0,0 +1,63 @@
+package study.datajpa.monitoring;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = "jdbc.slow-query.threshold=0")
+class SlowQueryLogTest {
+
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    SlowQueryLog slowQueryLog;
+
+    @Test
+    @DisplayName("Slow statements are recorded with call site, bind values and plan")
+    public void test1() throws Exception {
+        // given
+        memberRepository.save(new Member("slowQuery1", 10));
+        slowQueryLog.clear();
+
+        // when
+        memberRepository.findByUsername("slowQuery1");
+        memberRepository.findByNativeProjection(PageRequest.of(0, 10));
+
+        //then
+        List<SlowQuery> records = slowQueryLog.records();
+        assertThat(records).extracting(SlowQuery::getRepositoryMethod)
+                .contains("MemberRepository.findByUsername(String)", "MemberRepository.findByNativeProjection(Pageable)");
+
+        SlowQuery byUsername = records.stream()
+                .filter(record -> "MemberRepository.findByUsername(String)".equals(record.getRepositoryMethod()))
+                .collect(Collectors.toList())
+                .get(0);
+        assertThat(byUsername.getSql()).contains("?");
+        assertThat(byUsername.getSqlWithValues()).contains("'slowQuery1'");
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (byUsername.getPlan() == null && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(byUsername.getPlan()).isNotBlank().doesNotStartWith("EXPLAIN failed");
+    }
+
+    @Test
+    @DisplayName("An empty slow query log is rejected at startup")
+    public void test2() throws Exception {
+        assertThatThrownBy(() -> new SlowQueryLog(null, null, null, Duration.ZERO, 0, true))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("jdbc.slow-query.capacity");
+    }
+}
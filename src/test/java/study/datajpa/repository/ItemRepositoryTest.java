@@ -1,10 +1,15 @@
 package study.datajpa.repository;
 
+import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import study.datajpa.entity.Item;
 
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
 @SpringBootTest
 class ItemRepositoryTest {
 
@@ -18,4 +23,19 @@ class ItemRepositoryTest {
         itemRepository.save(item);
 
     }
+
+    @Test
+    @DisplayName("Bulk upsert")
+    public void test2() throws Exception {
+        // given
+        itemRepository.upsertAll(Arrays.asList(new Item("upsert-a"), new Item("upsert-b")));
+        long count = itemRepository.count();
+
+        // when
+        itemRepository.upsertAll(Arrays.asList(new Item("upsert-b"), new Item("upsert-c")));
+
+        //then
+        assertThat(itemRepository.count()).isEqualTo(count + 1);
+        assertThat(itemRepository.findById("upsert-c")).isPresent();
+    }
 }
@@ -0,0 +1,126 @@
+package study.datajpa.repository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.bulk.BulkUpdateProgress;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Concurrent age updates on a few hot rows, through optimistic locking with retries and through row locks,
+ * and chunked bulk updates. Not transactional, every update commits on its own.
+ */
+@SpringBootTest
+class MemberLockingTest {
+
+    private static final int WRITERS = 8;
+    private static final int UPDATES_PER_WRITER = 25;
+    private static final int ROWS = 4;
+
+    @Autowired
+    MemberRepository memberRepository;
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    @Test
+    @DisplayName("Optimistic locking with retry under contention")
+    public void test1() throws Exception {
+        Counter retries = meterRegistry.counter("repository.retries", "class", "CustomMemberRepository", "method", "addAge");
+        double retriesBefore = retries.count();
+
+        int failures = contend("optimistic", memberRepository::addAge);
+
+        //then
+        assertThat(retries.count() - retriesBefore).isPositive();
+        assertThat(failures).isZero();
+    }
+
+    @Test
+    @DisplayName("Pessimistic locking under contention")
+    public void test2() throws Exception {
+        contend("pessimistic", memberRepository::addAgeLocked);
+    }
+
+    @Test
+    @DisplayName("Chunked bulk update, resumable from the last committed chunk")
+    public void test3() throws Exception {
+        // given
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            ids.add(memberRepository.save(new Member("bulk" + i, 1000)).getId());
+        }
+        List<BulkUpdateProgress> reports = new ArrayList<>();
+
+        // when
+        BulkUpdateProgress result = memberRepository.bulkAgePlus(1000, 3, null, reports::add);
+        BulkUpdateProgress resumed = memberRepository.bulkAgePlus(1000, 3, result.getLastId(), reports::add);
+
+        //then
+        assertThat(result.isDone()).isTrue();
+        assertThat(result.getUpdated()).isEqualTo(10);
+        assertThat(result.getChunks()).isEqualTo(reports.size());
+        assertThat(reports).extracting(BulkUpdateProgress::getLastId).isSorted();
+        assertThat(resumed.getUpdated()).isZero();
+        assertThat(memberRepository.findAllById(ids)).extracting(Member::getAge).containsOnly(1001);
+    }
+
+    /**
+     * Returns the number of updates that failed.
+     */
+    private int contend(String name, BiFunction<Long, Integer, Integer> addAge) throws Exception {
+        // given
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < ROWS; i++) {
+            ids.add(memberRepository.save(new Member(name + i, 0)).getId());
+        }
+        ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+        AtomicInteger failures = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+
+        // when
+        long start = System.nanoTime();
+        List<Future<?>> writers = new ArrayList<>();
+        for (int w = 0; w < WRITERS; w++) {
+            writers.add(executor.submit(() -> {
+                for (int u = 0; u < UPDATES_PER_WRITER; u++) {
+                    Long id = ids.get(ThreadLocalRandom.current().nextInt(ROWS));
+                    long updateStart = System.nanoTime();
+                    try {
+                        addAge.apply(id, 1);
+                        latencies.add(System.nanoTime() - updateStart);
+                    } catch (RuntimeException e) {
+                        failures.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        for (Future<?> writer : writers) {
+            writer.get();
+        }
+        long elapsed = System.nanoTime() - start;
+        executor.shutdown();
+
+        //then
+        int ageSum = ids.stream().mapToInt(id -> memberRepository.findById(id).get().getAge()).sum();
+        assertThat(ageSum).isEqualTo(latencies.size());
+        assertThat(latencies.size() + failures.get()).isEqualTo(WRITERS * UPDATES_PER_WRITER);
+
+        List<Long> sorted = new ArrayList<>(latencies);
+        sorted.sort(null);
+        long p99 = sorted.isEmpty() ? 0 : sorted.get((int) Math.ceil(sorted.size() * 0.99) - 1);
+        System.out.printf("%s: %.0f updates/s, p99 %.2f ms, %d failed%n", name,
+                latencies.size() / (elapsed / 1e9), p99 / 1e6, failures.get());
+        return failures.get();
+    }
+}
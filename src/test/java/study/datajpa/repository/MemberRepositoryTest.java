@@ -1,5 +1,11 @@
 package study.datajpa.repository;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -7,16 +13,24 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.*;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.test.annotation.Rollback;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import study.datajpa.dto.MemberDto;
 import study.datajpa.entity.Member;
 import study.datajpa.entity.Team;
+import study.datajpa.repository.projection.GeneratedProjection;
 
+import javax.persistence.Cache;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -31,6 +45,9 @@ class MemberRepositoryTest {
     @Autowired
     TeamRepository teamRepository;
 
+    @Autowired
+    MeterRegistry meterRegistry;
+
     @PersistenceContext
     EntityManager em;
 
@@ -449,4 +466,341 @@ class MemberRepositoryTest {
         //then
     }
 
-}
\ No newline at end of file
+    @Test
+    @DisplayName("Keyset paging")
+    public void test20() throws Exception {
+        // given
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            ids.add(memberRepository.save(new Member("keyset" + (i % 3), i)).getId());
+        }
+        for (int i = 0; i < 3; i++) {
+            ids.add(memberRepository.save(new Member(null, i)).getId());
+        }
+
+        em.flush();
+        em.clear();
+
+        // when
+        List<Member> visited = new ArrayList<>();
+        MemberCursor cursor = null;
+        Slice<Member> slice;
+        do {
+            slice = memberRepository.findKeysetSlice(cursor, 2);
+            assertThat(slice.getNumberOfElements()).isLessThanOrEqualTo(2);
+            visited.addAll(slice.getContent());
+            cursor = MemberCursor.next(slice);
+            if (cursor != null) {
+                assertThat(MemberCursor.decode(cursor.encode())).isEqualTo(cursor);
+            }
+        } while (cursor != null);
+
+        //then
+        List<Member> keysetMembers = visited.stream()
+                .filter(m -> ids.contains(m.getId()))
+                .collect(Collectors.toList());
+
+        assertThat(keysetMembers).hasSize(10);
+        assertThat(keysetMembers).extracting(Member::getId).doesNotHaveDuplicates();
+        assertThat(keysetMembers.subList(0, 3)).extracting(Member::getUsername).containsOnlyNulls();
+        assertThat(keysetMembers.subList(3, 10)).extracting(Member::getUsername).isSorted();
+        assertThat(keysetMembers.stream().map(MemberDto::new).map(MemberDto::getTeamName)).containsOnlyNulls();
+    }
+
+    @Test
+    @DisplayName("Cached page count")
+    public void test21() throws Exception {
+        // given
+        memberRepository.save(new Member("count1", 10));
+        PageRequest pageRequest = PageRequest.of(0, 1);
+
+        // when
+        long total = memberRepository.findByAge(10, pageRequest).getTotalElements();
+        long cachedTotal = memberRepository.findByAge(10, pageRequest).getTotalElements();
+
+        memberRepository.save(new Member("count2", 10));
+        em.flush();
+
+        long invalidatedTotal = memberRepository.findByAge(10, pageRequest).getTotalElements();
+
+        //then
+        assertThat(cachedTotal).isEqualTo(total);
+        assertThat(invalidatedTotal).isEqualTo(total + 1);
+    }
+
+    @Test
+    @DisplayName("Batch insert")
+    public void test22() throws Exception {
+        // given
+        Team team = new Team("batchTeam");
+
+        // when
+        long saved = memberRepository.saveAllBatched(IntStream.range(0, 120)
+                .mapToObj(i -> new Member("batch" + i, i, team)));
+
+        //then
+        assertThat(saved).isEqualTo(120);
+        assertThat(em.contains(team)).isFalse();
+
+        List<Member> result = memberRepository.findListByUsername("batch119");
+        assertThat(result).hasSize(1);
+        assertThat(result.get(0).getTeam().getName()).isEqualTo("batchTeam");
+    }
+
+    @Test
+    @DisplayName("Stream DTO")
+    public void test23() throws Exception {
+        // given
+        Team team = new Team("streamTeam");
+        memberRepository.save(new Member("stream1", 10, team));
+        memberRepository.save(new Member("stream2", 20));
+
+        em.flush();
+        em.clear();
+
+        // when
+        List<MemberDto> result;
+        try (Stream<MemberDto> members = memberRepository.streamMemberDto()) {
+            result = members.filter(dto -> dto.getUsername() != null && dto.getUsername().startsWith("stream"))
+                    .collect(Collectors.toList());
+        }
+
+        //then
+        assertThat(result).extracting(MemberDto::getTeamName).containsExactlyInAnyOrder("streamTeam", null);
+    }
+
+    @Test
+    @DisplayName("Second level cache")
+    public void test24() throws Exception {
+        // given
+        Team team = teamRepository.save(new Team("cacheTeam"));
+        em.flush();
+        em.clear();
+
+        Cache cache = em.getEntityManagerFactory().getCache();
+        cache.evict(Team.class);
+
+        // when
+        teamRepository.findById(team.getId());
+
+        //then
+        assertThat(cache.contains(Team.class, team.getId())).isTrue();
+    }
+
+    @Test
+    @DisplayName("DTO paging")
+    public void test25() throws Exception {
+        // given
+        Team team = new Team("dtoTeam");
+        memberRepository.save(new Member("dto1", 10, team));
+        memberRepository.save(new Member("dto2", 20, team));
+
+        em.flush();
+        em.clear();
+
+        // when
+        Page<MemberDto> page = memberRepository.findMemberDtoPage(PageRequest.of(0, 2000, Sort.by("username")));
+
+        //then
+        List<MemberDto> content = page.getContent().stream()
+                .filter(dto -> dto.getUsername() != null && dto.getUsername().startsWith("dto"))
+                .collect(Collectors.toList());
+
+        assertThat(content).extracting(MemberDto::getTeamName).containsOnly("dtoTeam");
+        assertThat(page.getTotalElements()).isGreaterThanOrEqualTo(2);
+    }
+
+    @Test
+    @DisplayName("Preload associations")
+    public void test26() throws Exception {
+        // given
+        for (int i = 0; i < 3; i++) {
+            memberRepository.save(new Member("preload" + i, i, new Team("preloadTeam" + i)));
+        }
+
+        em.flush();
+        em.clear();
+        em.getEntityManagerFactory().getCache().evict(Team.class);
+
+        List<Member> members = memberRepository.findByNames(Arrays.asList("preload0", "preload1", "preload2"));
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+
+        // when
+        memberRepository.preload(members, "team");
+        long statementCount = statistics.getPrepareStatementCount();
+
+        //then
+        assertThat(members).extracting(m -> m.getTeam().getName())
+                .containsExactlyInAnyOrder("preloadTeam0", "preloadTeam1", "preloadTeam2");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(statementCount);
+    }
+
+    @Test
+    @DisplayName("Repository metrics")
+    public void test27() throws Exception {
+        // given
+        memberRepository.save(new Member("metrics1", 10));
+        em.flush();
+        em.clear();
+
+        // when
+        memberRepository.findListByUsername("metrics1");
+
+        //then
+        Timer timer = meterRegistry.find("repository.invocations")
+                .tags("repository", "MemberRepository", "method", "findListByUsername(String)")
+                .timer();
+        DistributionSummary entities = meterRegistry.find("repository.entities")
+                .tags("repository", "MemberRepository", "method", "findListByUsername(String)")
+                .summary();
+
+        assertThat(timer).isNotNull();
+        assertThat(timer.count()).isGreaterThanOrEqualTo(1);
+        assertThat(entities).isNotNull();
+        assertThat(entities.totalAmount()).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Generated projections")
+    public void test28() throws Exception {
+        // given
+        Team team = new Team("projectionTeam");
+        em.persist(new Member("projection1", 7, team));
+
+        em.flush();
+        em.clear();
+
+        // when
+        List<UsernameOnly> open = memberRepository.findProjectionsV1ByUsername("projection1");
+        List<NestedClosedProjections> nested = memberRepository.findProjectionsV3ByUsername("projection1", NestedClosedProjections.class);
+
+        //then
+        assertThat(open.get(0)).isInstanceOf(GeneratedProjection.class);
+        assertThat(open.get(0).getUsername()).isEqualTo("projection1 7");
+
+        assertThat(nested.get(0)).isInstanceOf(GeneratedProjection.class);
+        assertThat(nested.get(0).getUsername()).isEqualTo("projection1");
+        assertThat(nested.get(0).getTeam().getName()).isEqualTo("projectionTeam");
+    }
+
+    @Test
+    @DisplayName("Compiled specifications reuse the query plan")
+    public void test29() throws Exception {
+        // given
+        Team team = new Team("specTeam");
+        em.persist(new Member("spec1", 0, team));
+        em.persist(new Member("spec2", 0, team));
+        em.flush();
+        em.clear();
+
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        memberRepository.findAll(MemberSpecification.username("warmup"));
+        long hits = statistics.getQueryPlanCacheHitCount();
+
+        // when
+        List<Member> result1 = memberRepository.findAll(MemberSpecification.username("spec1"));
+        List<Member> result2 = memberRepository.findAll(MemberSpecification.username("spec2"));
+
+        //then
+        assertThat(statistics.getQueryPlanCacheHitCount() - hits).isGreaterThanOrEqualTo(2);
+        assertThat(result1).extracting(Member::getUsername).containsExactly("spec1");
+        assertThat(result2).extracting(Member::getUsername).containsExactly("spec2");
+    }
+
+    @Test
+    @DisplayName("Multi-load by ids")
+    public void test30() throws Exception {
+        // given
+        Member member1 = memberRepository.save(new Member("multiLoad1", 1));
+        Member member2 = memberRepository.save(new Member("multiLoad2", 2));
+        Member member3 = memberRepository.save(new Member("multiLoad3", 3));
+        em.flush();
+        em.clear();
+        em.getEntityManagerFactory().getCache().evict(Member.class);
+
+        Member managed = em.find(Member.class, member2.getId());
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        long statementCount = statistics.getPrepareStatementCount();
+
+        // when
+        List<Member> result = memberRepository.multiLoad(
+                Arrays.asList(member3.getId(), member1.getId(), member2.getId(), member3.getId(), -1L));
+
+        //then
+        assertThat(result).extracting(Member::getUsername).containsExactly("multiLoad3", "multiLoad1", "multiLoad2");
+        assertThat(result.get(2)).isSameAs(managed);
+        assertThat(statistics.getPrepareStatementCount() - statementCount).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("Async reads run concurrently in transactions of their own")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void test31() throws Exception {
+        // given
+        Team team = teamRepository.save(new Team("asyncTeam"));
+        memberRepository.save(new Member("async1", 10, team));
+        memberRepository.save(new Member("async2", 20, team));
+
+        // when
+        CompletableFuture<List<Member>> members = memberRepository.findAsyncByUsername("async1");
+        CompletableFuture<List<MemberDto>> dtos = memberRepository.findMemberDtoAsync();
+        CompletableFuture<Long> memberCount = memberRepository.countAsync();
+        CompletableFuture<List<Team>> teams = teamRepository.findAllAsync();
+        CompletableFuture.allOf(members, dtos, memberCount, teams).join();
+
+        //then
+        assertThat(members.join()).extracting(Member::getUsername).containsExactly("async1");
+        assertThat(members.join().get(0).getTeam().getName()).isEqualTo("asyncTeam");
+        assertThat(dtos.join()).extracting(MemberDto::getUsername).contains("async1", "async2");
+        assertThat(memberCount.join()).isGreaterThanOrEqualTo(2);
+        assertThat(teams.join()).extracting(Team::getName).contains("asyncTeam");
+    }
+
+    @Test
+    @DisplayName("Paged findAll stays writable")
+    public void test32() throws Exception {
+        // given
+        memberRepository.save(new Member("listing1", 10));
+        em.flush();
+        em.clear();
+
+        // when
+        Session session = em.unwrap(Session.class);
+        Page<Member> page = memberRepository.findAll(PageRequest.of(0, 10));
+        boolean readOnly = page.getContent().stream().anyMatch(session::isReadOnly);
+
+        Member member = page.getContent().get(0);
+        member.setAge(member.getAge() + 1);
+        em.flush();
+        em.clear();
+
+        //then
+        assertThat(readOnly).isFalse();
+        Integer age = em.createQuery("select m.age from Member m where m.id = :id", Integer.class)
+                .setParameter("id", member.getId())
+                .getSingleResult();
+        assertThat(age).isEqualTo(member.getAge());
+    }
+
+    @Test
+    @DisplayName("Username prefix and fuzzy search")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void test33() throws Exception {
+        // given
+        Member alice = memberRepository.save(new Member("searchAlice", 10));
+        Member alicia = memberRepository.save(new Member("searchAlicia", 20));
+        Member bob = memberRepository.save(new Member("searchBob", 30));
+
+        // when
+        List<Member> byPrefix = memberRepository.searchByUsernamePrefix("SEARCHALI", 10);
+        List<Member> byTypo = memberRepository.searchByUsernameFuzzy("serchAlice", 1, 10);
+        memberRepository.delete(bob);
+        List<Long> afterDelete = memberRepository.searchIdsByUsernamePrefix("searchBob", 10);
+
+        //then
+        assertThat(byPrefix).extracting(Member::getId).containsExactly(alice.getId(), alicia.getId());
+        assertThat(byTypo).extracting(Member::getId).containsExactly(alice.getId());
+        assertThat(afterDelete).isEmpty();
+    }
+
+}
@@ -0,0 +1,56 @@
+package study.datajpa.repository.index;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.entity.Member;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+class IndexAdvisorTest {
+
+    @Autowired
+    EntityManagerFactory emf;
+
+    @Test
+    @DisplayName("Derived query columns")
+    public void test1() throws Exception {
+        // given
+        QueryColumnAnalyzer analyzer = new QueryColumnAnalyzer(emf.unwrap(SessionFactoryImplementor.class));
+
+        // when
+        List<IndexCandidate> candidates = analyzer.derived(Member.class, "findByUsernameAndAgeGreaterThan");
+
+        //then
+        assertThat(candidates).hasSize(1);
+        IndexCandidate candidate = candidates.get(0);
+        assertThat(candidate.getTable()).isEqualTo("member");
+        assertThat(candidate.getEqualities()).containsExactly("username");
+        assertThat(candidate.getRanges()).containsExactly("age");
+        assertThat(candidate.isServedBy(List.of("username", "member_id"))).isTrue();
+        assertThat(candidate.isServedBy(List.of("age"))).isFalse();
+    }
+
+    @Test
+    @DisplayName("JPQL columns across joins")
+    public void test2() throws Exception {
+        // given
+        QueryColumnAnalyzer analyzer = new QueryColumnAnalyzer(emf.unwrap(SessionFactoryImplementor.class));
+
+        // when
+        List<IndexCandidate> candidates = analyzer.jpql(
+                "select e from Member e inner join e.team j0 where j0.name = :p0 and e.team.id in :p1 order by e.age");
+
+        //then
+        assertThat(candidates).extracting(IndexCandidate::toString)
+                .containsExactly("team(name =)", "member(team_id =, age order)");
+        assertThat(candidates.get(1).createStatement())
+                .isEqualTo("create index if not exists idx_member_team_id_age on member (team_id, age)");
+    }
+}